@@ -2,8 +2,10 @@ package com.hazari;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class HazariApplication {
     public static void main(String[] args) {
         SpringApplication.run(HazariApplication.class, args);
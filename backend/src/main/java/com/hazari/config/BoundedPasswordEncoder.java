@@ -0,0 +1,111 @@
+package com.hazari.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt on a CPU-sized pool behind a bounded queue.
+ *
+ * The calling request thread waits for its hash, but at most "workers"
+ * hashes run at once, so a burst of logins cannot take every core from the
+ * rest of the API. When the queue is full the call fails fast with
+ * PasswordHashingBusyException (503 + Retry-After).
+ *
+ * upgradeEncoding reports any hash whose cost differs from the configured
+ * strength, so with UserDetailsPasswordService in place a login rehashes
+ * the password at the new cost, up or down.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final int strength;
+    private final ThreadPoolExecutor workers;
+
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(int strength, int workers, int queueCapacity, MeterRegistry meterRegistry) {
+        this.bcrypt = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hash");
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        this.encodeTimer = Timer.builder("auth.password.hash").tag("op", "encode")
+                .description("BCrypt hash time, excluding queue wait").register(meterRegistry);
+        this.matchTimer = Timer.builder("auth.password.hash").tag("op", "matches")
+                .description("BCrypt verify time, excluding queue wait").register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.rejected")
+                .description("hash requests refused because the queue was full").register(meterRegistry);
+        Gauge.builder("auth.password.queue.depth", this.workers, w -> w.getQueue().size())
+                .description("hash requests waiting for a worker").register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodeTimer.recordCallable(() -> bcrypt.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matchTimer.recordCallable(() -> bcrypt.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher m = BCRYPT_COST.matcher(encodedPassword);
+        return m.find() && Integer.parseInt(m.group(1)) != strength;
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = workers.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+    }
+}
@@ -1,11 +1,16 @@
 package com.hazari.config;
 
+import com.hazari.service.TokenRevocationService;
+import com.hazari.service.TokenVersionRegistry;
 import com.hazari.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -13,17 +18,27 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Verified claims of the request's token, for anything downstream that needs them
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".claims";
+
     private final JwtUtil jwtUtil;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenVersionRegistry tokenVersions;
+    private final TokenRevocationService tokenRevocations;
 
     public JwtAuthenticationFilter(JwtUtil jwtUtil,
-                                   UserDetailsServiceImpl userDetailsService) {
+                                   UserDetailsServiceImpl userDetailsService,
+                                   TokenVersionRegistry tokenVersions,
+                                   TokenRevocationService tokenRevocations) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.tokenVersions = tokenVersions;
+        this.tokenRevocations = tokenRevocations;
     }
 
     @SuppressWarnings("null")
@@ -35,23 +50,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        Claims claims = null;
 
         // Expect header: Authorization: Bearer <token>
+        // The signature is verified once here; everything after works on the claims
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
-            } catch (Exception e) {
+                Claims parsed = jwtUtil.parseClaims(authHeader.substring(7));
+                // Logged-out tokens: in-memory Bloom check, DB only on a hit
+                if (!tokenRevocations.isRevoked(parsed.getId(), parsed.getExpiration())) {
+                    claims = parsed;
+                    request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+                }
+            } catch (JwtException | IllegalArgumentException e) {
                 // invalid token -> continue without setting auth
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (claims != null && claims.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtPrincipal principal = jwtUtil.toPrincipal(claims);
+            if (principal != null) {
+                // Self-contained token: no users lookup, only the in-memory revocation check
+                if (tokenVersions.isCurrent(principal.getUserId(), jwtUtil.getVersion(claims))) {
+                    UsernamePasswordAuthenticationToken authToken =
+                            new UsernamePasswordAuthenticationToken(
+                                    principal,
+                                    null,
+                                    List.of(new SimpleGrantedAuthority("ROLE_" + principal.getRole()))
+                            );
+                    authToken.setDetails(
+                            new WebAuthenticationDetailsSource().buildDetails(request)
+                    );
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                }
+                filterChain.doFilter(request, response);
+                return;
+            }
+
+            // Token issued before the identity claims existed: load the user as before
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (jwtUtil.validateToken(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -0,0 +1,33 @@
+package com.hazari.config;
+
+import java.security.Principal;
+
+/**
+ * Authenticated caller built from a token's claims, without a users lookup.
+ * labourId is set for LABOUR users, contractorId for CONTRACTOR users.
+ */
+public class JwtPrincipal implements Principal {
+
+    private final Long userId;
+    private final String username;
+    private final String role;
+    private final Long labourId;
+    private final Long contractorId;
+
+    public JwtPrincipal(Long userId, String username, String role, Long labourId, Long contractorId) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.labourId = labourId;
+        this.contractorId = contractorId;
+    }
+
+    @Override
+    public String getName() { return username; }
+
+    public Long getUserId() { return userId; }
+    public String getUsername() { return username; }
+    public String getRole() { return role; }
+    public Long getLabourId() { return labourId; }
+    public Long getContractorId() { return contractorId; }
+}
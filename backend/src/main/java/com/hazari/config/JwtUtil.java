@@ -1,9 +1,12 @@
 package com.hazari.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import com.hazari.entity.User;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -12,15 +15,47 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
+
+    // Identity claims, so a request can be authenticated without a users lookup
+    public static final String ROLE_CLAIM = "role";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String LABOUR_ID_CLAIM = "lid";
+    public static final String CONTRACTOR_ID_CLAIM = "cid";
+    public static final String VERSION_CLAIM = "ver";
+
     @Value("${jwt.secret}")
     private String secret;
-    
+
+    // Access token lifetime; kept short, clients renew with a refresh token
+    @Value("${jwt.expiration-ms:900000}")
+    private long expirationMs;
+
+    // Built once: the key and parser are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
+    }
+
+    /**
+     * Verifies the signature and expiry once and returns the claims.
+     * Throws JwtException (or IllegalArgumentException for a blank token)
+     * if the token is not valid.
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
     
     public String extractUsername(String token) {
@@ -37,11 +72,7 @@ public class JwtUtil {
     }
     
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parseClaims(token);
     }
     
     private Boolean isTokenExpired(String token) {
@@ -52,20 +83,67 @@ public class JwtUtil {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, ((UserDetails) userDetails).getUsername());
     }
+
+    /**
+     * Token carrying role, ids and the user's token version.
+     * contractorId == userId for CONTRACTOR users in the current design.
+     */
+    public String generateToken(User user, Long labourId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLE_CLAIM, user.getRole());
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(VERSION_CLAIM, user.getTokenVersion());
+        if (labourId != null) {
+            claims.put(LABOUR_ID_CLAIM, labourId);
+        }
+        if ("CONTRACTOR".equalsIgnoreCase(user.getRole())) {
+            claims.put(CONTRACTOR_ID_CLAIM, user.getId());
+        }
+        return createToken(claims, user.getUsername());
+    }
+
+    /** Principal from a token issued by generateToken(User, Long), or null for an older token. */
+    public JwtPrincipal toPrincipal(Claims claims) {
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (userId == null || role == null || claims.get(VERSION_CLAIM) == null) {
+            return null;
+        }
+        return new JwtPrincipal(userId, claims.getSubject(), role,
+                claims.get(LABOUR_ID_CLAIM, Long.class),
+                claims.get(CONTRACTOR_ID_CLAIM, Long.class));
+    }
+
+    public int getVersion(Claims claims) {
+        return claims.get(VERSION_CLAIM, Integer.class);
+    }
     
+    // Every token gets a jti so it can be revoked individually (logout)
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hours
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expirationMs))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
+
+    public long getExpirationMs() {
+        return expirationMs;
+    }
     
     public boolean validateToken(String token, UserDetails userDetails) {
     String username = extractUsername(token);
     return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
 }
 
+    // Same check on claims already verified by parseClaims, no second parse
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date());
+    }
+
 }
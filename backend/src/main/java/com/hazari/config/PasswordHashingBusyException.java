@@ -0,0 +1,12 @@
+package com.hazari.config;
+
+/**
+ * Thrown when the password hashing queue is full. Answered with
+ * 503 + Retry-After so clients back off instead of stacking up logins.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException() {
+        super("Too many logins right now, please retry");
+    }
+}
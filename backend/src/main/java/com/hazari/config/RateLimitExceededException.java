@@ -0,0 +1,19 @@
+package com.hazari.config;
+
+/**
+ * Thrown when a client or username is over its rate limit.
+ * Answered with 429 + Retry-After.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(long retryAfterSeconds) {
+        super("Too many requests, please retry later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,57 @@
+package com.hazari.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Per-IP throttling for the routes listed under rate-limit.routes
+ * (login, register, forgot-password, image upload). Runs before security
+ * and before the body is read, so a rejected request costs no BCrypt and
+ * no disk. Answers 429 + Retry-After.
+ *
+ * The client IP is request.getRemoteAddr(); behind a reverse proxy set
+ * server.forward-headers-strategy so it is the real client address.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @SuppressWarnings("null")
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        RateLimiter.Buckets buckets = rateLimiter.ipBuckets(request.getServletPath());
+        if (buckets != null) {
+            long waitNanos = buckets.tryAcquire(request.getRemoteAddr());
+            if (waitNanos > 0) {
+                rateLimiter.onIpRejected();
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(RateLimiter.toRetryAfterSeconds(waitNanos)));
+                response.setContentType("text/plain;charset=UTF-8");
+                response.getWriter().write("Too many requests, please retry later");
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,52 @@
+package com.hazari.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * rate-limit.* from application.yml: per-route limits, by client IP
+ * (checked in RateLimitFilter) and by username (checked in AuthService).
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Map<String, Route> getRoutes() { return routes; }
+    public void setRoutes(Map<String, Route> routes) { this.routes = routes; }
+
+    public static class Route {
+        private String path;
+        private Limit perIp;
+        private Limit perUser;
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+        public Limit getPerIp() { return perIp; }
+        public void setPerIp(Limit perIp) { this.perIp = perIp; }
+        public Limit getPerUser() { return perUser; }
+        public void setPerUser(Limit perUser) { this.perUser = perUser; }
+    }
+
+    /** requests per period on average, up to burst at once. */
+    public static class Limit {
+        private int requests;
+        private Duration period = Duration.ofMinutes(1);
+        private int burst = 1;
+
+        public int getRequests() { return requests; }
+        public void setRequests(int requests) { this.requests = requests; }
+        public Duration getPeriod() { return period; }
+        public void setPeriod(Duration period) { this.period = period; }
+        public int getBurst() { return burst; }
+        public void setBurst(int burst) { this.burst = burst; }
+    }
+}
@@ -0,0 +1,196 @@
+package com.hazari.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process token buckets, one per (route, client IP) and (route, username).
+ *
+ * Each bucket is a single AtomicLong holding its "theoretical arrival time"
+ * (GCRA): a request is allowed if pushing that time one interval forward
+ * keeps it within burst intervals of now, and the update is a CAS, so there
+ * are no locks on the hot path. Buckets live in ConcurrentHashMaps; a bucket
+ * that has fully refilled holds no information, so the idle sweep simply
+ * removes those.
+ *
+ * Routes without a limit cost one HashMap lookup on the request path.
+ *
+ * A per-username limit can count failures only: the caller takes a slot
+ * before the expensive check, so concurrent guesses cannot all slip through,
+ * and gives it back with refundUser() when the attempt succeeds.
+ *
+ * Metrics: rate.limit.rejected{scope=ip|user}, rate.limit.buckets.
+ */
+@Component
+public class RateLimiter {
+
+    private final boolean enabled;
+    private final Map<String, Route> byPath = new HashMap<>();
+    private final Map<String, Route> byName = new HashMap<>();
+    private final Counter ipRejected;
+    private final Counter userRejected;
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.ipRejected = Counter.builder("rate.limit.rejected").tag("scope", "ip")
+                .description("requests refused by a per-IP limit").register(meterRegistry);
+        this.userRejected = Counter.builder("rate.limit.rejected").tag("scope", "user")
+                .description("requests refused by a per-username limit").register(meterRegistry);
+        Gauge.builder("rate.limit.buckets", this, RateLimiter::size)
+                .description("clients and usernames currently tracked").register(meterRegistry);
+        properties.getRoutes().forEach((name, config) -> {
+            Route route = new Route(Buckets.of(config.getPerIp()), Buckets.of(config.getPerUser()));
+            byName.put(name, route);
+            if (config.getPath() != null) {
+                byPath.put(config.getPath(), route);
+            }
+        });
+    }
+
+    /** The route's per-IP buckets, or null if the path is not limited by IP. */
+    public Buckets ipBuckets(String path) {
+        if (!enabled) {
+            return null;
+        }
+        Route route = byPath.get(path);
+        return route != null ? route.perIp : null;
+    }
+
+    /** Throws RateLimitExceededException if this username is over the route's limit. */
+    public void checkUser(String routeName, String username) {
+        if (!enabled || username == null) {
+            return;
+        }
+        Route route = byName.get(routeName);
+        if (route == null || route.perUser == null) {
+            return;
+        }
+        long waitNanos = route.perUser.tryAcquire(username.trim().toLowerCase());
+        if (waitNanos > 0) {
+            userRejected.increment();
+            throw new RateLimitExceededException(toRetryAfterSeconds(waitNanos));
+        }
+    }
+
+    /** Returns the slot taken by checkUser, for an attempt that should not count (e.g. a good login). */
+    public void refundUser(String routeName, String username) {
+        if (!enabled || username == null) {
+            return;
+        }
+        Route route = byName.get(routeName);
+        if (route != null && route.perUser != null) {
+            route.perUser.release(username.trim().toLowerCase());
+        }
+    }
+
+    public void onIpRejected() {
+        ipRejected.increment();
+    }
+
+    public static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.idle-sweep-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Route route : byName.values()) {
+            if (route.perIp != null) {
+                route.perIp.evictIdle(now);
+            }
+            if (route.perUser != null) {
+                route.perUser.evictIdle(now);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Route route : byName.values()) {
+            size += route.perIp != null ? route.perIp.buckets.size() : 0;
+            size += route.perUser != null ? route.perUser.buckets.size() : 0;
+        }
+        return size;
+    }
+
+    private static final class Route {
+        final Buckets perIp;
+        final Buckets perUser;
+
+        Route(Buckets perIp, Buckets perUser) {
+            this.perIp = perIp;
+            this.perUser = perUser;
+        }
+    }
+
+    /** All buckets for one limit, keyed by client IP or username. */
+    public static final class Buckets {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+        private Buckets(long intervalNanos, int burst) {
+            this.intervalNanos = intervalNanos;
+            this.burstNanos = intervalNanos * Math.max(burst, 1);
+        }
+
+        static Buckets of(RateLimitProperties.Limit limit) {
+            if (limit == null || limit.getRequests() <= 0) {
+                return null;
+            }
+            return new Buckets(limit.getPeriod().toNanos() / limit.getRequests(), limit.getBurst());
+        }
+
+        /** 0 if allowed, otherwise nanoseconds until the next request would be. */
+        public long tryAcquire(String key) {
+            AtomicLong tat = buckets.get(key);
+            if (tat == null) {
+                tat = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+            }
+            while (true) {
+                long now = System.nanoTime();
+                long current = tat.get();
+                // A fresh or refilled bucket starts from now
+                long base = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long next = base + intervalNanos;
+                long over = next - now - burstNanos;
+                if (over > 0) {
+                    return over;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        /** Undoes one tryAcquire that returned 0; a bucket already refilled is left as is. */
+        public void release(String key) {
+            AtomicLong tat = buckets.get(key);
+            if (tat == null) {
+                return;
+            }
+            while (true) {
+                long current = tat.get();
+                if (current == Long.MIN_VALUE || tat.compareAndSet(current, current - intervalNanos)) {
+                    return;
+                }
+            }
+        }
+
+        void evictIdle(long now) {
+            buckets.values().removeIf(tat -> {
+                long current = tat.get();
+                return current == Long.MIN_VALUE || current - now <= 0;
+            });
+        }
+    }
+}
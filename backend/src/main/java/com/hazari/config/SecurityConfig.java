@@ -1,6 +1,8 @@
 // src/main/java/com/hazari/config/SecurityConfig.java - FIXED ORDER
 package com.hazari.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -8,7 +10,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
@@ -21,9 +22,14 @@ import java.util.List;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // BCrypt off the request threads; workers <= 0 means one per CPU core
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.bcrypt-strength:10}") int strength,
+                                           @Value("${auth.password.workers:0}") int workers,
+                                           @Value("${auth.password.queue-capacity:64}") int queueCapacity,
+                                           MeterRegistry meterRegistry) {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, meterRegistry);
     }
 
     @Bean
@@ -0,0 +1,36 @@
+package com.hazari.controller;
+
+import com.hazari.config.PasswordHashingBusyException;
+import com.hazari.config.RateLimitExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    private final String retryAfterSeconds;
+
+    public ApiExceptionHandler(@Value("${auth.password.retry-after-seconds:2}") int retryAfterSeconds) {
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    // Password hashing queue full (login / register / password reset)
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<String> passwordHashingBusy(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .body(e.getMessage());
+    }
+
+    // Per-username limit on login / forgot-password (per-IP limits answer in RateLimitFilter)
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<String> rateLimited(RateLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+}
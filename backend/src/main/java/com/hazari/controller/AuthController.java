@@ -1,6 +1,7 @@
 package com.hazari.controller;
 
 import com.hazari.dto.LoginRequest;
+import com.hazari.dto.RefreshTokenRequest;
 import com.hazari.dto.RegisterRequest;
 import com.hazari.service.AuthService;
 import org.springframework.http.ResponseEntity;
@@ -8,6 +9,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.http.HttpStatus;
 import java.util.Map;
 import com.hazari.dto.ForgotPasswordRequest;
+import com.hazari.config.PasswordHashingBusyException;
+import com.hazari.config.RateLimitExceededException;
 
 
 
@@ -24,12 +27,29 @@ public class AuthController {
     }
 
     // POST /api/auth/login
-    // Returns: { "token": "...", "role": "CONTRACTOR", "userId": 1 }
+    // Returns: { "token": "...", "refreshToken": "...", "role": "CONTRACTOR", "userId": 1 }
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest request) {
         return ResponseEntity.ok(authService.login(request));
     }
 
+    // POST /api/auth/refresh  { "refreshToken": "..." }
+    // Returns a new access token and the next refresh token (the old one stops working)
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authService.refresh(request));
+    }
+
+    // POST /api/auth/logout  { "refreshToken": "..." } + Authorization: Bearer <access token>
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(name = "Authorization", required = false) String authorization,
+                                    @RequestBody(required = false) RefreshTokenRequest request) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7) : null;
+        authService.logout(accessToken, request);
+        return ResponseEntity.ok("Logged out");
+    }
+
     // POST /api/auth/register
    @PostMapping("/register")
 public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
@@ -40,6 +60,8 @@ public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
     } catch (IllegalArgumentException ex) {
         // 400 Bad Request with error message
         return ResponseEntity.badRequest().body(ex.getMessage());
+    } catch (PasswordHashingBusyException ex) {
+        throw ex; // 503 + Retry-After from ApiExceptionHandler
     } catch (Exception ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Registration error: " + ex.getMessage());
@@ -56,6 +78,8 @@ public ResponseEntity<?> forgotPassword(@RequestBody ForgotPasswordRequest reque
         return ResponseEntity.ok(message);
     } catch (IllegalArgumentException e) {
         return ResponseEntity.badRequest().body(e.getMessage());
+    } catch (PasswordHashingBusyException | RateLimitExceededException e) {
+        throw e; // 503 / 429 + Retry-After from ApiExceptionHandler
     } catch (Exception e) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Error resetting password: " + e.getMessage());
@@ -1,18 +1,32 @@
 package com.hazari.controller;
 
 import com.hazari.dto.PaymentSummaryDto;
+import com.hazari.dto.PaymentTotalsDto;
+import com.hazari.dto.ShiftRuleDto;
 import com.hazari.dto.TodayAttendanceDto;
 import com.hazari.dto.ContractorProfileDto;
 import com.hazari.entity.Contractor;
 import com.hazari.entity.Leave;
+import com.hazari.entity.ShiftRule;
 import com.hazari.repository.ContractorRepository;
 import com.hazari.service.LeaveService;
 import com.hazari.service.ContractorService;
 import com.hazari.service.PaymentService;
 import com.hazari.service.AttendanceService;
+import com.hazari.service.AttendanceHistoryService;
+import com.hazari.service.MusterRollService;
+import com.hazari.service.ShiftRuleService;
+import com.hazari.service.ContractorBudgetService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
@@ -27,17 +41,29 @@ public class ContractorController {
     private final LeaveService leaveService;
     private final PaymentService paymentService;
     private final ContractorService contractorService;
+    private final AttendanceHistoryService attendanceHistoryService;
+    private final MusterRollService musterRollService;
+    private final ShiftRuleService shiftRuleService;
+    private final ContractorBudgetService contractorBudgetService;
 
     public ContractorController(ContractorRepository contractorRepository,
                                 LeaveService leaveService,
                                 PaymentService paymentService,
                                 AttendanceService attendanceService,
-                                ContractorService contractorService) {
+                                ContractorService contractorService,
+                                AttendanceHistoryService attendanceHistoryService,
+                                MusterRollService musterRollService,
+                                ShiftRuleService shiftRuleService,
+                                ContractorBudgetService contractorBudgetService) {
         this.contractorRepository = contractorRepository;
         this.leaveService = leaveService;
         this.paymentService = paymentService;
         this.attendanceService = attendanceService;
         this.contractorService = contractorService;
+        this.attendanceHistoryService = attendanceHistoryService;
+        this.musterRollService = musterRollService;
+        this.shiftRuleService = shiftRuleService;
+        this.contractorBudgetService = contractorBudgetService;
     }
 
     // ------------------------------------------------------------------
@@ -80,11 +106,36 @@ public ResponseEntity<List<Leave>> getPendingLeaves(@RequestParam(name = "contra
 
     // ------------------------------------------------------------------
     // PAYMENT SUMMARY
-    // GET /api/contractor/payment-summary/{userId}
+    // GET /api/contractor/payment-summary/{userId}?month=yyyy-MM
     // ------------------------------------------------------------------
     @GetMapping("/payment-summary/{userId}")
-    public ResponseEntity<PaymentSummaryDto> getPaymentSummary(@PathVariable Long userId) {
-        return ResponseEntity.ok(paymentService.getPaymentSummary(userId));
+    public ResponseEntity<PaymentSummaryDto> getPaymentSummary(@PathVariable Long userId,
+                                                               @RequestParam(required = false) YearMonth month) {
+        return ResponseEntity.ok(paymentService.getPaymentSummary(userId, month));
+    }
+
+    // ------------------------------------------------------------------
+    // PAYMENT HISTORY (keyset paginated, newest first)
+    // GET /api/contractor/payments/{userId}?cursor=&size=
+    // ------------------------------------------------------------------
+    @GetMapping("/payments/{userId}")
+    public ResponseEntity<?> getPaymentHistory(@PathVariable Long userId,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(paymentService.getPaymentHistory(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // YEAR-TO-DATE TOTAL + LAST PAYMENT
+    // GET /api/contractor/payments/{userId}/totals
+    // ------------------------------------------------------------------
+    @GetMapping("/payments/{userId}/totals")
+    public ResponseEntity<PaymentTotalsDto> getPaymentTotals(@PathVariable Long userId) {
+        return ResponseEntity.ok(paymentService.getPaymentTotals(userId));
     }
 
     // ------------------------------------------------------------------
@@ -103,6 +154,8 @@ public ResponseEntity<List<Leave>> getPendingLeaves(@RequestParam(name = "contra
         response.put("company", contractor.getCompanyName());
         response.put("totalBudget", contractor.getTotalBudget());
         response.put("active", contractor.isActive());
+        // Single ledger row, no aggregate over attendance / payments
+        response.put("budget", contractorBudgetService.getBudget(contractor));
 
         return ResponseEntity.ok(response);
     }
@@ -120,6 +173,73 @@ public ResponseEntity<List<Leave>> getPendingLeaves(@RequestParam(name = "contra
         return ResponseEntity.ok(attendance);
     }
 
+    // ----------------------------------------------------------------------
+    // TODAY'S ATTENDANCE - LIVE FEED (Server-Sent Events)
+    // GET /api/contractor/{contractorId}/today-attendance/stream
+    // Sends a "snapshot" event, then "check-in" / "check-out" row updates
+    // ----------------------------------------------------------------------
+    @GetMapping(path = "/{contractorId}/today-attendance/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTodayAttendance(@PathVariable("contractorId") Long contractorId) {
+        return attendanceService.streamTodayAttendanceForContractor(contractorId);
+    }
+
+    // ----------------------------------------------------------------------
+    // ATTENDANCE HISTORY - ALL LABOURS (keyset paginated, newest first)
+    // GET /api/contractor/{contractorId}/attendance?from=&to=&cursor=&size=
+    // ----------------------------------------------------------------------
+    @GetMapping("/{contractorId}/attendance")
+    public ResponseEntity<?> getAttendanceHistory(
+            @PathVariable("contractorId") Long contractorId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(attendanceHistoryService.getContractorHistory(contractorId, from, to, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // SHIFT RULES (late arrival, regular hours, break)
+    // GET / PUT /api/contractor/{contractorId}/shift-rule
+    // ----------------------------------------------------------------------
+    @GetMapping("/{contractorId}/shift-rule")
+    public ResponseEntity<ShiftRule> getShiftRule(@PathVariable("contractorId") Long contractorId) {
+        return ResponseEntity.ok(shiftRuleService.getRule(contractorId));
+    }
+
+    @PutMapping("/{contractorId}/shift-rule")
+    public ResponseEntity<?> updateShiftRule(@PathVariable("contractorId") Long contractorId,
+                                             @RequestBody ShiftRuleDto dto) {
+        try {
+            return ResponseEntity.ok(shiftRuleService.saveRule(contractorId, dto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // MUSTER ROLL EXPORT (streamed CSV, one row per labour-day)
+    // GET /api/contractor/{contractorId}/muster-roll?month=yyyy-MM
+    // ----------------------------------------------------------------------
+    @GetMapping("/{contractorId}/muster-roll")
+    public ResponseEntity<?> exportMusterRoll(
+            @PathVariable("contractorId") Long contractorId,
+            @RequestParam(name = "month") YearMonth month,
+            @RequestParam(name = "format", defaultValue = "csv") String format) {
+        if (!"csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().body("Only csv format is supported");
+        }
+        StreamingResponseBody body = out -> musterRollService.writeCsv(contractorId, month, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"muster-roll-" + contractorId + "-" + month + ".csv\"")
+                .body(body);
+    }
+
     // ----------------------------------------------------------------------
     // TODAY'S ATTENDANCE - GENERAL + OPTIONAL FILTER
     // GET /api/contractor/attendance/today
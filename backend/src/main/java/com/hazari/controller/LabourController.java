@@ -1,23 +1,47 @@
 package com.hazari.controller;
 
+import com.hazari.dto.AttendanceEvent;
 import com.hazari.dto.AttendanceInDto;
 import com.hazari.dto.AttendanceOutDto;
+import com.hazari.dto.AttendanceSyncRequest;
+import com.hazari.dto.BulkAttendanceDto;
 import com.hazari.dto.LeaveRequestDto;
+import com.hazari.dto.PayslipStatusDto;
 import com.hazari.entity.Attendance;
 import com.hazari.entity.Labour;
 import com.hazari.entity.Leave;
 import com.hazari.entity.User;
-import com.hazari.repository.AttendanceRepository;
 import com.hazari.repository.LabourRepository;
 import com.hazari.repository.UserRepository;
+import com.hazari.service.AttendanceHistoryService;
+import com.hazari.service.AttendanceIngestionQueue;
 import com.hazari.service.AttendanceService;
+import com.hazari.service.AttendanceSyncService;
 import com.hazari.service.LeaveService;
+import com.hazari.service.PayslipService;
+import com.hazari.service.UserDetailsServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -29,22 +53,43 @@ public class LabourController {
     private final LabourRepository labourRepository;
     private final AttendanceService attendanceService;
     private final LeaveService leaveService;
-    private final AttendanceRepository attendanceRepository;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AttendanceIngestionQueue ingestionQueue;
+    private final AttendanceSyncService attendanceSyncService;
+    private final AttendanceHistoryService attendanceHistoryService;
+    private final ObjectMapper objectMapper;
+    private final PayslipService payslipService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final long maxSyncRequestBytes;
+    private final long maxSyncInflatedBytes;
 
     public LabourController(LabourRepository labourRepository,
                             AttendanceService attendanceService,
                             LeaveService leaveService,
-                            AttendanceRepository attendanceRepository,
                             UserRepository userRepository,
-                            PasswordEncoder passwordEncoder) {
+                            PasswordEncoder passwordEncoder,
+                            AttendanceIngestionQueue ingestionQueue,
+                            AttendanceSyncService attendanceSyncService,
+                            AttendanceHistoryService attendanceHistoryService,
+                            ObjectMapper objectMapper,
+                            PayslipService payslipService,
+                            UserDetailsServiceImpl userDetailsService,
+                            @Value("${attendance.sync.max-request-bytes:10485760}") long maxSyncRequestBytes,
+                            @Value("${attendance.sync.max-inflated-bytes:52428800}") long maxSyncInflatedBytes) {
         this.labourRepository = labourRepository;
         this.attendanceService = attendanceService;
         this.leaveService = leaveService;
-        this.attendanceRepository = attendanceRepository;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.ingestionQueue = ingestionQueue;
+        this.attendanceSyncService = attendanceSyncService;
+        this.attendanceHistoryService = attendanceHistoryService;
+        this.objectMapper = objectMapper;
+        this.payslipService = payslipService;
+        this.userDetailsService = userDetailsService;
+        this.maxSyncRequestBytes = maxSyncRequestBytes;
+        this.maxSyncInflatedBytes = maxSyncInflatedBytes;
     }
 
     // =========================
@@ -107,6 +152,8 @@ public class LabourController {
         labour.setUserId(user.getId());
 
         Labour savedLabour = labourRepository.save(labour);
+        // Drop any cached copy loaded before the labour link existed
+        userDetailsService.evict(username);
 
         // 3️⃣ Prepare response for Flutter
         Map<String, Object> resp = new HashMap<>();
@@ -132,6 +179,11 @@ public class LabourController {
     // =========================
     @PostMapping("/checkin")
     public ResponseEntity<String> checkIn(@RequestBody AttendanceInDto dto) {
+        // Write-behind mode: acknowledge once queued, row is written in a batch
+        if (ingestionQueue.isEnabled()) {
+            ingestionQueue.submit(AttendanceEvent.checkIn(dto, LocalDateTime.now()));
+            return ResponseEntity.ok("Check-in accepted");
+        }
         Attendance attendance = attendanceService.checkIn(dto);
         return ResponseEntity.ok("Check-in successful. ID: " + attendance.getId());
     }
@@ -144,8 +196,83 @@ public class LabourController {
             @PathVariable @NonNull Long labourId,
             @RequestBody AttendanceOutDto dto) {
 
-        Attendance attendance = attendanceService.checkOut(labourId, dto);
-        return ResponseEntity.ok("Check-out successful. ID: " + attendance.getId());
+        if (ingestionQueue.isEnabled()) {
+            ingestionQueue.submit(AttendanceEvent.checkOut(labourId, dto, LocalDateTime.now()));
+            return ResponseEntity.ok("Check-out accepted");
+        }
+        attendanceService.checkOut(labourId, dto);
+        return ResponseEntity.ok("Check-out successful");
+    }
+
+    // =========================
+    // 3️⃣a BULK CHECK-IN / CHECK-OUT (supervisor, whole gang in one call)
+    // Body: { "labourIds": [..], "photoPath": "..", "latitude": .., "longitude": .. }
+    // Returns one { labourId, result } per labour
+    // =========================
+    @PostMapping("/checkin/bulk")
+    public ResponseEntity<?> bulkCheckIn(@RequestBody BulkAttendanceDto dto) {
+        try {
+            return ResponseEntity.ok(attendanceService.bulkCheckIn(dto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/checkout/bulk")
+    public ResponseEntity<?> bulkCheckOut(@RequestBody BulkAttendanceDto dto) {
+        try {
+            return ResponseEntity.ok(attendanceService.bulkCheckOut(dto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // =========================
+    // 3️⃣b OFFLINE SYNC
+    // Body: { "deviceId": "..", "events": [ { eventId, labourId, action: IN|OUT, time, photoPath, latitude, longitude } ] }
+    // May be sent with Content-Encoding: gzip. Streams back one JSON ack per line.
+    // 413 if the body exceeds max-request-bytes, or max-inflated-bytes once unzipped.
+    // =========================
+    @PostMapping("/sync")
+    public ResponseEntity<?> syncAttendance(HttpServletRequest request) {
+        if (request.getContentLengthLong() > maxSyncRequestBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("Sync payload too large");
+        }
+        AttendanceSyncRequest body;
+        try {
+            InputStream in = new LimitedInputStream(request.getInputStream(), maxSyncRequestBytes);
+            if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+                in = new LimitedInputStream(new GZIPInputStream(in), maxSyncInflatedBytes);
+            }
+            body = objectMapper.readValue(in, AttendanceSyncRequest.class);
+        } catch (PayloadTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("Sync payload too large");
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Invalid sync payload: " + e.getMessage());
+        }
+
+        StreamingResponseBody acks = out -> attendanceSyncService.sync(body, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(acks);
+    }
+
+    // =========================
+    // 3️⃣c ATTENDANCE HISTORY (keyset paginated, newest first)
+    // GET /api/labour/{labourId}/attendance?from=&to=&cursor=&size=
+    // =========================
+    @GetMapping("/{labourId}/attendance")
+    public ResponseEntity<?> getAttendanceHistory(
+            @PathVariable @NonNull Long labourId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(attendanceHistoryService.getLabourHistory(labourId, from, to, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     // =========================
@@ -193,36 +320,97 @@ public class LabourController {
     }
 
     // =========================
-    // 6️⃣ TODAY'S ATTENDANCE STATUS (mock for now)
+    // 6️⃣ TODAY'S ATTENDANCE STATUS
+    // hoursWorked / overtimeHours come from the minutes stamped at check-out
     // =========================
     @GetMapping("/today-status/{labourId}")
     public ResponseEntity<Map<String, Object>> getTodayStatus(@PathVariable @NonNull Long labourId) {
+        return ResponseEntity.ok(attendanceService.getTodayStatus(labourId));
+    }
 
-        Map<String, Object> status = Map.of(
-                "labourId", labourId,
-                "todayCheckedIn", true,
-                "todayCheckedOut", false,
-                "hoursWorked", "8.5"
-        );
-        return ResponseEntity.ok(status);
+    // =========================
+    // 6️⃣b PAYSLIP (rendered in the background, then downloaded)
+    // POST /api/labour/{labourId}/payslips?month=yyyy-MM -> 200 READY / 202 PENDING
+    // GET  /api/labour/{labourId}/payslips/{month}/file
+    // =========================
+    @PostMapping("/{labourId}/payslips")
+    public ResponseEntity<PayslipStatusDto> requestPayslip(@PathVariable @NonNull Long labourId,
+                                                           @RequestParam(name = "month") YearMonth month) {
+        PayslipStatusDto status = payslipService.request(labourId, month);
+        return status.isReady() ? ResponseEntity.ok(status) : ResponseEntity.accepted().body(status);
+    }
+
+    @GetMapping("/{labourId}/payslips/{month}/file")
+    public ResponseEntity<FileSystemResource> downloadPayslip(@PathVariable @NonNull Long labourId,
+                                                              @PathVariable YearMonth month) {
+        Path file = payslipService.getFile(labourId, month);
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_HTML)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(new FileSystemResource(file));
     }
 
     // =========================
     // 7️⃣ GET ALL LABOURS UNDER A CONTRACTOR (WITH daysWorked)
+    // Optional ?from=yyyy-MM-dd&to=yyyy-MM-dd limits daysWorked to a pay period
     // =========================
     @GetMapping("/by-contractor/{contractorId}")
     public ResponseEntity<List<Labour>> getLaboursByContractor(
-            @PathVariable @NonNull Long contractorId) {
+            @PathVariable @NonNull Long contractorId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
 
         List<Labour> labours = labourRepository.findByContractorId(contractorId);
 
-        // For each labour, compute daysWorked from attendance table
+        // daysWorked for the whole contractor in one grouped query
+        Map<Long, Long> daysWorked = attendanceService.getDaysWorkedByContractor(contractorId, from, to);
         for (Labour labour : labours) {
-            long daysWorked = attendanceRepository
-                    .countByLabourIdAndTimeInIsNotNull(labour.getId());
-            labour.setDaysWorked(daysWorked);
+            labour.setDaysWorked(daysWorked.getOrDefault(labour.getId(), 0L));
         }
 
         return ResponseEntity.ok(labours);
     }
+
+    // Fails the read once more than limit bytes have come through (chunked bodies have no Content-Length)
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws PayloadTooLargeException {
+            count += n;
+            if (count > limit) {
+                throw new PayloadTooLargeException();
+            }
+        }
+    }
+
+    private static final class PayloadTooLargeException extends IOException {
+    }
 }
@@ -0,0 +1,44 @@
+package com.hazari.controller;
+
+import com.hazari.dto.PayrollRunStatusDto;
+import com.hazari.service.PayrollRunService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+
+@RestController
+@RequestMapping("/api/payroll")
+@CrossOrigin(origins = "*")
+public class PayrollController {
+
+    private final PayrollRunService payrollRunService;
+
+    public PayrollController(PayrollRunService payrollRunService) {
+        this.payrollRunService = payrollRunService;
+    }
+
+    // ------------------------------------------------------------------
+    // START MONTH-END RUN (runs in the background)
+    // POST /api/payroll/runs?month=yyyy-MM   (default: previous month)
+    // ------------------------------------------------------------------
+    @PostMapping("/runs")
+    public ResponseEntity<PayrollRunStatusDto> startRun(@RequestParam(required = false) YearMonth month) {
+        YearMonth target = month != null ? month : YearMonth.now().minusMonths(1);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(payrollRunService.start(target));
+    }
+
+    // ------------------------------------------------------------------
+    // PROGRESS + THROUGHPUT OF THE LATEST RUN
+    // GET /api/payroll/runs/current
+    // ------------------------------------------------------------------
+    @GetMapping("/runs/current")
+    public ResponseEntity<PayrollRunStatusDto> getCurrentRun() {
+        PayrollRunStatusDto status = payrollRunService.getStatus();
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+}
@@ -0,0 +1,80 @@
+package com.hazari.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hazari.entity.ShiftRule;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One check-in or check-out, stamped at the moment it was accepted.
+ * Used when attendance is written in batches instead of one row per request,
+ * and as the wire format for offline sync (where eventId and time come from
+ * the device).
+ */
+public class AttendanceEvent {
+
+    public static final String IN = "IN";
+    public static final String OUT = "OUT";
+
+    private String eventId; // client-generated, offline sync only
+    private Long labourId;
+    private String action; // "IN" or "OUT"
+    private LocalDate date;
+    private LocalDateTime time;
+    private String photoPath;
+    private Double latitude;
+    private Double longitude;
+
+    // Resolved server-side before the write (ShiftRuleService.apply), never from the client
+    @JsonIgnore
+    private ShiftRule shift;
+
+    public AttendanceEvent() {
+    }
+
+    public AttendanceEvent(Long labourId, String action, LocalDateTime time,
+                           String photoPath, Double latitude, Double longitude) {
+        this.labourId = labourId;
+        this.action = action;
+        this.date = time.toLocalDate();
+        this.time = time;
+        this.photoPath = photoPath;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public static AttendanceEvent checkIn(AttendanceInDto dto, LocalDateTime time) {
+        return new AttendanceEvent(dto.getLabourId(), IN, time,
+                dto.getPhotoPath(), dto.getLatitude(), dto.getLongitude());
+    }
+
+    public static AttendanceEvent checkOut(Long labourId, AttendanceOutDto dto, LocalDateTime time) {
+        return new AttendanceEvent(labourId, OUT, time,
+                dto.getPhotoPath(), dto.getLatitude(), dto.getLongitude());
+    }
+
+    public boolean isCheckIn() {
+        return IN.equals(action);
+    }
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+    public Long getLabourId() { return labourId; }
+    public void setLabourId(Long labourId) { this.labourId = labourId; }
+    public String getAction() { return action; }
+    public void setAction(String action) { this.action = action; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    public LocalDateTime getTime() { return time; }
+    public void setTime(LocalDateTime time) { this.time = time; }
+    public String getPhotoPath() { return photoPath; }
+    public void setPhotoPath(String photoPath) { this.photoPath = photoPath; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    @JsonIgnore
+    public ShiftRule getShift() { return shift; }
+    @JsonIgnore
+    public void setShift(ShiftRule shift) { this.shift = shift; }
+}
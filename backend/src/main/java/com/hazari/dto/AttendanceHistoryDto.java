@@ -0,0 +1,45 @@
+package com.hazari.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Lightweight attendance history row (no photos / GPS)
+public class AttendanceHistoryDto {
+
+    private Long labourId;
+    private String labourName;
+    private LocalDate date;
+    private LocalDateTime timeIn;
+    private LocalDateTime timeOut;
+    private String status;
+
+    public AttendanceHistoryDto() {}
+
+    public AttendanceHistoryDto(Long labourId, LocalDate date, LocalDateTime timeIn,
+                                LocalDateTime timeOut, String status) {
+        this(labourId, null, date, timeIn, timeOut, status);
+    }
+
+    public AttendanceHistoryDto(Long labourId, String labourName, LocalDate date,
+                                LocalDateTime timeIn, LocalDateTime timeOut, String status) {
+        this.labourId = labourId;
+        this.labourName = labourName;
+        this.date = date;
+        this.timeIn = timeIn;
+        this.timeOut = timeOut;
+        this.status = status;
+    }
+
+    public Long getLabourId() { return labourId; }
+    public void setLabourId(Long labourId) { this.labourId = labourId; }
+    public String getLabourName() { return labourName; }
+    public void setLabourName(String labourName) { this.labourName = labourName; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    public LocalDateTime getTimeIn() { return timeIn; }
+    public void setTimeIn(LocalDateTime timeIn) { this.timeIn = timeIn; }
+    public LocalDateTime getTimeOut() { return timeOut; }
+    public void setTimeOut(LocalDateTime timeOut) { this.timeOut = timeOut; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
@@ -0,0 +1,26 @@
+package com.hazari.dto;
+
+public class AttendanceSyncAckDto {
+
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String NO_CHECKIN = "NO_CHECKIN";
+    public static final String UNKNOWN_LABOUR = "UNKNOWN_LABOUR";
+    public static final String INVALID = "INVALID";
+    public static final String TOO_OLD = "TOO_OLD"; // before the tiering cutoff, not merged
+
+    private String eventId;
+    private String result;
+
+    public AttendanceSyncAckDto() {}
+
+    public AttendanceSyncAckDto(String eventId, String result) {
+        this.eventId = eventId;
+        this.result = result;
+    }
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+    public String getResult() { return result; }
+    public void setResult(String result) { this.result = result; }
+}
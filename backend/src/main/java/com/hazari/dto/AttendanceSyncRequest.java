@@ -0,0 +1,17 @@
+package com.hazari.dto;
+
+import java.util.List;
+
+// Offline backlog uploaded by a device once it is back online
+public class AttendanceSyncRequest {
+
+    private String deviceId;
+    private List<AttendanceEvent> events;
+
+    public AttendanceSyncRequest() {}
+
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+    public List<AttendanceEvent> getEvents() { return events; }
+    public void setEvents(List<AttendanceEvent> events) { this.events = events; }
+}
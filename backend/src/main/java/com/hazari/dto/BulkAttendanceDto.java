@@ -0,0 +1,14 @@
+package com.hazari.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// One supervisor marking a whole gang: shared photo + GPS for every labour
+@Data
+public class BulkAttendanceDto {
+    private List<Long> labourIds;
+    private String photoPath;
+    private Double latitude;
+    private Double longitude;
+}
@@ -0,0 +1,24 @@
+package com.hazari.dto;
+
+public class BulkAttendanceResultDto {
+
+    public static final String OK = "OK";
+    public static final String UNKNOWN_LABOUR = "UNKNOWN_LABOUR";
+    public static final String NO_CHECKIN = "NO_CHECKIN";
+
+    private Long labourId;
+    private String result;
+
+    public BulkAttendanceResultDto() {
+    }
+
+    public BulkAttendanceResultDto(Long labourId, String result) {
+        this.labourId = labourId;
+        this.result = result;
+    }
+
+    public Long getLabourId() { return labourId; }
+    public void setLabourId(Long labourId) { this.labourId = labourId; }
+    public String getResult() { return result; }
+    public void setResult(String result) { this.result = result; }
+}
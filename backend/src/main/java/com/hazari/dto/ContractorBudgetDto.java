@@ -0,0 +1,30 @@
+package com.hazari.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Budget burn-down for the contractor dashboard
+public class ContractorBudgetDto {
+
+    private BigDecimal totalBudget;
+    private BigDecimal consumed;            // wages accrued so far
+    private BigDecimal paid;
+    private BigDecimal remaining;
+    private BigDecimal dailyBurn;           // average accrued per day since the first accrual
+    private LocalDate projectedExhaustionDate;
+
+    public ContractorBudgetDto() {}
+
+    public BigDecimal getTotalBudget() { return totalBudget; }
+    public void setTotalBudget(BigDecimal totalBudget) { this.totalBudget = totalBudget; }
+    public BigDecimal getConsumed() { return consumed; }
+    public void setConsumed(BigDecimal consumed) { this.consumed = consumed; }
+    public BigDecimal getPaid() { return paid; }
+    public void setPaid(BigDecimal paid) { this.paid = paid; }
+    public BigDecimal getRemaining() { return remaining; }
+    public void setRemaining(BigDecimal remaining) { this.remaining = remaining; }
+    public BigDecimal getDailyBurn() { return dailyBurn; }
+    public void setDailyBurn(BigDecimal dailyBurn) { this.dailyBurn = dailyBurn; }
+    public LocalDate getProjectedExhaustionDate() { return projectedExhaustionDate; }
+    public void setProjectedExhaustionDate(LocalDate projectedExhaustionDate) { this.projectedExhaustionDate = projectedExhaustionDate; }
+}
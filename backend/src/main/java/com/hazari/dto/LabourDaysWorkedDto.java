@@ -0,0 +1,20 @@
+package com.hazari.dto;
+
+public class LabourDaysWorkedDto {
+
+    private Long labourId;
+    private Long daysWorked;
+
+    public LabourDaysWorkedDto() {
+    }
+
+    public LabourDaysWorkedDto(Long labourId, Long daysWorked) {
+        this.labourId = labourId;
+        this.daysWorked = daysWorked;
+    }
+
+    public Long getLabourId() { return labourId; }
+    public void setLabourId(Long labourId) { this.labourId = labourId; }
+    public Long getDaysWorked() { return daysWorked; }
+    public void setDaysWorked(Long daysWorked) { this.daysWorked = daysWorked; }
+}
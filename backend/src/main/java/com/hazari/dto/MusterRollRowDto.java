@@ -0,0 +1,57 @@
+package com.hazari.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One labour-day of a monthly muster roll
+public class MusterRollRowDto {
+
+    private Long labourId;
+    private String labourName;
+    private String phone;
+    private LocalDate date;
+    private LocalDateTime timeIn;
+    private LocalDateTime timeOut;
+    private String status;
+    private Integer workedMinutes;
+    private Integer overtimeMinutes;
+    private Boolean late;
+
+    public MusterRollRowDto() {}
+
+    public MusterRollRowDto(Long labourId, String labourName, String phone, LocalDate date,
+                            LocalDateTime timeIn, LocalDateTime timeOut, String status,
+                            Integer workedMinutes, Integer overtimeMinutes, Boolean late) {
+        this.labourId = labourId;
+        this.labourName = labourName;
+        this.phone = phone;
+        this.date = date;
+        this.timeIn = timeIn;
+        this.timeOut = timeOut;
+        this.status = status;
+        this.workedMinutes = workedMinutes;
+        this.overtimeMinutes = overtimeMinutes;
+        this.late = late;
+    }
+
+    public Long getLabourId() { return labourId; }
+    public void setLabourId(Long labourId) { this.labourId = labourId; }
+    public String getLabourName() { return labourName; }
+    public void setLabourName(String labourName) { this.labourName = labourName; }
+    public String getPhone() { return phone; }
+    public void setPhone(String phone) { this.phone = phone; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    public LocalDateTime getTimeIn() { return timeIn; }
+    public void setTimeIn(LocalDateTime timeIn) { this.timeIn = timeIn; }
+    public LocalDateTime getTimeOut() { return timeOut; }
+    public void setTimeOut(LocalDateTime timeOut) { this.timeOut = timeOut; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Integer getWorkedMinutes() { return workedMinutes; }
+    public void setWorkedMinutes(Integer workedMinutes) { this.workedMinutes = workedMinutes; }
+    public Integer getOvertimeMinutes() { return overtimeMinutes; }
+    public void setOvertimeMinutes(Integer overtimeMinutes) { this.overtimeMinutes = overtimeMinutes; }
+    public Boolean getLate() { return late; }
+    public void setLate(Boolean late) { this.late = late; }
+}
@@ -0,0 +1,31 @@
+package com.hazari.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Lightweight payment history row
+public class PaymentHistoryDto {
+
+    private Long id;
+    private LocalDate paymentDate;
+    private BigDecimal amount;
+    private String status;
+
+    public PaymentHistoryDto() {}
+
+    public PaymentHistoryDto(Long id, LocalDate paymentDate, BigDecimal amount, String status) {
+        this.id = id;
+        this.paymentDate = paymentDate;
+        this.amount = amount;
+        this.status = status;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public LocalDate getPaymentDate() { return paymentDate; }
+    public void setPaymentDate(LocalDate paymentDate) { this.paymentDate = paymentDate; }
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
@@ -1,19 +1,33 @@
 // src/main/java/com/hazari/dto/PaymentSummaryDto.java
 package com.hazari.dto;
 
+import java.math.BigDecimal;
+
 public class PaymentSummaryDto {
-    private Double totalAmount;
+    private String month;          // yyyy-MM
+    private BigDecimal totalAmount;
     private Integer daysWorked;
-    private Double dailyRate;
+    private Integer leaveDays;
+    private BigDecimal hoursWorked;
+    private BigDecimal overtimeHours;
+    private BigDecimal dailyRate;
     
     // Constructors
     public PaymentSummaryDto() {}
     
     // Getters and Setters
-    public Double getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(Double totalAmount) { this.totalAmount = totalAmount; }
+    public String getMonth() { return month; }
+    public void setMonth(String month) { this.month = month; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
     public Integer getDaysWorked() { return daysWorked; }
     public void setDaysWorked(Integer daysWorked) { this.daysWorked = daysWorked; }
-    public Double getDailyRate() { return dailyRate; }
-    public void setDailyRate(Double dailyRate) { this.dailyRate = dailyRate; }
+    public Integer getLeaveDays() { return leaveDays; }
+    public void setLeaveDays(Integer leaveDays) { this.leaveDays = leaveDays; }
+    public BigDecimal getHoursWorked() { return hoursWorked; }
+    public void setHoursWorked(BigDecimal hoursWorked) { this.hoursWorked = hoursWorked; }
+    public BigDecimal getOvertimeHours() { return overtimeHours; }
+    public void setOvertimeHours(BigDecimal overtimeHours) { this.overtimeHours = overtimeHours; }
+    public BigDecimal getDailyRate() { return dailyRate; }
+    public void setDailyRate(BigDecimal dailyRate) { this.dailyRate = dailyRate; }
 }
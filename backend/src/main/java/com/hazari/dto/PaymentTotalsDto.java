@@ -0,0 +1,33 @@
+package com.hazari.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Year-to-date / lifetime payment totals for one user
+public class PaymentTotalsDto {
+
+    private Long userId;
+    private int year;
+    private BigDecimal ytdTotal;
+    private BigDecimal lifetimeTotal;
+    private long paymentCount;
+    private LocalDate lastPaymentDate;
+    private BigDecimal lastPaymentAmount;
+
+    public PaymentTotalsDto() {}
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public int getYear() { return year; }
+    public void setYear(int year) { this.year = year; }
+    public BigDecimal getYtdTotal() { return ytdTotal; }
+    public void setYtdTotal(BigDecimal ytdTotal) { this.ytdTotal = ytdTotal; }
+    public BigDecimal getLifetimeTotal() { return lifetimeTotal; }
+    public void setLifetimeTotal(BigDecimal lifetimeTotal) { this.lifetimeTotal = lifetimeTotal; }
+    public long getPaymentCount() { return paymentCount; }
+    public void setPaymentCount(long paymentCount) { this.paymentCount = paymentCount; }
+    public LocalDate getLastPaymentDate() { return lastPaymentDate; }
+    public void setLastPaymentDate(LocalDate lastPaymentDate) { this.lastPaymentDate = lastPaymentDate; }
+    public BigDecimal getLastPaymentAmount() { return lastPaymentAmount; }
+    public void setLastPaymentAmount(BigDecimal lastPaymentAmount) { this.lastPaymentAmount = lastPaymentAmount; }
+}
@@ -0,0 +1,44 @@
+package com.hazari.dto;
+
+import java.math.BigDecimal;
+
+public class PayrollRunStatusDto {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String COMPLETED_WITH_ERRORS = "COMPLETED_WITH_ERRORS";
+
+    private String month;               // yyyy-MM
+    private String status;
+    private int contractorsTotal;
+    private int contractorsDone;
+    private int contractorsFailed;
+    private int contractorsSkipped;     // already paid by an earlier, interrupted run
+    private long laboursPaid;
+    private BigDecimal totalAmount;
+    private long elapsedMs;
+    private double laboursPerSecond;
+
+    public PayrollRunStatusDto() {}
+
+    public String getMonth() { return month; }
+    public void setMonth(String month) { this.month = month; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public int getContractorsTotal() { return contractorsTotal; }
+    public void setContractorsTotal(int contractorsTotal) { this.contractorsTotal = contractorsTotal; }
+    public int getContractorsDone() { return contractorsDone; }
+    public void setContractorsDone(int contractorsDone) { this.contractorsDone = contractorsDone; }
+    public int getContractorsFailed() { return contractorsFailed; }
+    public void setContractorsFailed(int contractorsFailed) { this.contractorsFailed = contractorsFailed; }
+    public int getContractorsSkipped() { return contractorsSkipped; }
+    public void setContractorsSkipped(int contractorsSkipped) { this.contractorsSkipped = contractorsSkipped; }
+    public long getLaboursPaid() { return laboursPaid; }
+    public void setLaboursPaid(long laboursPaid) { this.laboursPaid = laboursPaid; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+    public double getLaboursPerSecond() { return laboursPerSecond; }
+    public void setLaboursPerSecond(double laboursPerSecond) { this.laboursPerSecond = laboursPerSecond; }
+}
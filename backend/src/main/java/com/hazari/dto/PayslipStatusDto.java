@@ -0,0 +1,32 @@
+package com.hazari.dto;
+
+public class PayslipStatusDto {
+
+    public static final String READY = "READY";
+    public static final String PENDING = "PENDING";
+
+    private Long labourId;
+    private String month;           // yyyy-MM
+    private String status;
+    private String downloadUrl;
+
+    public PayslipStatusDto() {}
+
+    public PayslipStatusDto(Long labourId, String month, String status, String downloadUrl) {
+        this.labourId = labourId;
+        this.month = month;
+        this.status = status;
+        this.downloadUrl = downloadUrl;
+    }
+
+    public boolean isReady() { return READY.equals(status); }
+
+    public Long getLabourId() { return labourId; }
+    public void setLabourId(Long labourId) { this.labourId = labourId; }
+    public String getMonth() { return month; }
+    public void setMonth(String month) { this.month = month; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getDownloadUrl() { return downloadUrl; }
+    public void setDownloadUrl(String downloadUrl) { this.downloadUrl = downloadUrl; }
+}
@@ -0,0 +1,9 @@
+package com.hazari.dto;
+
+public class RefreshTokenRequest {
+
+    private String refreshToken;
+
+    public String getRefreshToken() { return refreshToken; }
+    public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+}
@@ -0,0 +1,12 @@
+package com.hazari.dto;
+
+import lombok.Data;
+
+// Shift rule update; null fields keep their current value
+@Data
+public class ShiftRuleDto {
+    private String shiftStart;        // HH:mm
+    private Integer regularMinutes;
+    private Integer lateGraceMinutes;
+    private Integer breakMinutes;
+}
@@ -1,5 +1,7 @@
 package com.hazari.dto;
 
+import java.time.LocalDateTime;
+
 public class TodayAttendanceDto {
 
     private Long labourId;
@@ -19,6 +21,14 @@ public class TodayAttendanceDto {
         this.checkOut = checkOut;
     }
 
+    // Used by the JPQL projection in AttendanceRepository
+    public TodayAttendanceDto(Long labourId, String labourName, String status,
+                              LocalDateTime timeIn, LocalDateTime timeOut) {
+        this(labourId, labourName, status,
+                timeIn != null ? timeIn.toString() : null,
+                timeOut != null ? timeOut.toString() : null);
+    }
+
     public Long getLabourId() {
         return labourId;
     }
@@ -9,7 +9,14 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "attendance")
+@Table(name = "attendance",
+        uniqueConstraints = @UniqueConstraint(name = "uk_attendance_labour_date",
+                columnNames = {"labour_id", "date"}),
+        indexes = {
+                @Index(name = "idx_attendance_date", columnList = "date, labour_id"),
+                // Covering index for the history API: no row lookups needed
+                @Index(name = "idx_attendance_history", columnList = "labour_id, date, timeIn, timeOut, status")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,6 +52,17 @@ public class Attendance {
     // Stored or calculated attendance status
     private String status;
 
+    // Computed at write time from the contractor's shift rule (see ShiftRule)
+    private Integer workedMinutes;
+    private Integer overtimeMinutes;
+    private Boolean late;
+
+    // Set by MySQL on every insert / change, whichever instance or path wrote the row;
+    // lets the today board pick up writes made elsewhere
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)")
+    private LocalDateTime updatedAt;
+
     // -----------------------------------
     // 🔹 Computed Fields (NOT stored in DB)
     // -----------------------------------
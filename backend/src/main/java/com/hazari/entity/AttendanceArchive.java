@@ -0,0 +1,52 @@
+package com.hazari.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cold tier of the attendance table: rows older than the hot window are moved
+ * here unchanged (same id) by AttendanceTieringService.
+ */
+@Entity
+@Table(name = "attendance_archive",
+        uniqueConstraints = @UniqueConstraint(name = "uk_attendance_archive_labour_date",
+                columnNames = {"labour_id", "date"}),
+        indexes = {
+                @Index(name = "idx_attendance_archive_date", columnList = "date, labour_id"),
+                @Index(name = "idx_attendance_archive_history", columnList = "labour_id, date, timeIn, timeOut, status")
+        })
+@Data
+@NoArgsConstructor
+public class AttendanceArchive {
+
+    @Id
+    private Long id;
+
+    @Column(name = "labour_id", nullable = false)
+    private Long labourId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    private LocalDateTime timeIn;
+    private LocalDateTime timeOut;
+
+    private String inPhotoPath;
+    private String outPhotoPath;
+
+    private Double inLatitude;
+    private Double inLongitude;
+
+    private Double outLatitude;
+    private Double outLongitude;
+
+    private String status;
+
+    private Integer workedMinutes;
+    private Integer overtimeMinutes;
+    private Boolean late;
+}
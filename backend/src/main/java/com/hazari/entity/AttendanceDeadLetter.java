@@ -0,0 +1,99 @@
+package com.hazari.entity;
+
+import com.hazari.dto.AttendanceEvent;
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Write-behind check-in / check-out that could not be written after all
+ * retries. Already acknowledged to the client, so it is kept here and
+ * replayed (with the offline-sync merge rules) instead of being dropped.
+ *
+ * Also holds check-outs that found no check-in row when written
+ * (unmatched): they are replayed until the end of their day in case the
+ * check-in arrives late, then left here for a supervisor to resolve.
+ */
+@Entity
+@Table(name = "attendance_dead_letter")
+public class AttendanceDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "labour_id", nullable = false)
+    private Long labourId;
+
+    @Column(nullable = false, length = 3)
+    private String action;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private LocalDateTime time;
+
+    private String photoPath;
+    private Double latitude;
+    private Double longitude;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private int replayAttempts;
+
+    @Column(nullable = false)
+    private boolean unmatched;
+
+    private LocalDateTime createdAt;
+
+    public AttendanceDeadLetter() {}
+
+    public static AttendanceDeadLetter of(AttendanceEvent event, String error) {
+        AttendanceDeadLetter row = new AttendanceDeadLetter();
+        row.labourId = event.getLabourId();
+        row.action = event.getAction();
+        row.date = event.getDate();
+        row.time = event.getTime();
+        row.photoPath = event.getPhotoPath();
+        row.latitude = event.getLatitude();
+        row.longitude = event.getLongitude();
+        row.setLastError(error);
+        row.createdAt = LocalDateTime.now();
+        return row;
+    }
+
+    public AttendanceEvent toEvent() {
+        AttendanceEvent event = new AttendanceEvent(labourId, action, time, photoPath, latitude, longitude);
+        event.setDate(date);
+        return event;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getLabourId() { return labourId; }
+    public void setLabourId(Long labourId) { this.labourId = labourId; }
+    public String getAction() { return action; }
+    public void setAction(String action) { this.action = action; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    public LocalDateTime getTime() { return time; }
+    public void setTime(LocalDateTime time) { this.time = time; }
+    public String getPhotoPath() { return photoPath; }
+    public void setPhotoPath(String photoPath) { this.photoPath = photoPath; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) {
+        this.lastError = lastError != null && lastError.length() > 500 ? lastError.substring(0, 500) : lastError;
+    }
+    public int getReplayAttempts() { return replayAttempts; }
+    public void setReplayAttempts(int replayAttempts) { this.replayAttempts = replayAttempts; }
+    public boolean isUnmatched() { return unmatched; }
+    public void setUnmatched(boolean unmatched) { this.unmatched = unmatched; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,39 @@
+package com.hazari.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Per-labour, per-month totals for attendance that has been archived.
+ * month is the first day of the month.
+ */
+@Entity
+@Table(name = "attendance_month_summary",
+        uniqueConstraints = @UniqueConstraint(name = "uk_attendance_month_summary_labour_month",
+                columnNames = {"labour_id", "month"}))
+public class AttendanceMonthSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "labour_id", nullable = false)
+    private Long labourId;
+
+    @Column(nullable = false)
+    private LocalDate month;
+
+    @Column(nullable = false)
+    private int daysWorked;
+
+    public AttendanceMonthSummary() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getLabourId() { return labourId; }
+    public void setLabourId(Long labourId) { this.labourId = labourId; }
+    public LocalDate getMonth() { return month; }
+    public void setMonth(LocalDate month) { this.month = month; }
+    public int getDaysWorked() { return daysWorked; }
+    public void setDaysWorked(int daysWorked) { this.daysWorked = daysWorked; }
+}
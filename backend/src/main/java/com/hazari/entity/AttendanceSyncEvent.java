@@ -0,0 +1,34 @@
+package com.hazari.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Client event ids already merged into attendance (offline sync dedup)
+@Entity
+@Table(name = "attendance_sync_event")
+public class AttendanceSyncEvent {
+
+    @Id
+    @Column(name = "event_id", length = 64)
+    private String eventId;
+
+    @Column(name = "labour_id", nullable = false)
+    private Long labourId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    private LocalDateTime receivedAt;
+
+    public AttendanceSyncEvent() {}
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+    public Long getLabourId() { return labourId; }
+    public void setLabourId(Long labourId) { this.labourId = labourId; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(LocalDateTime receivedAt) { this.receivedAt = receivedAt; }
+}
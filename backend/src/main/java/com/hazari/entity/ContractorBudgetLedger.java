@@ -0,0 +1,45 @@
+package com.hazari.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Running labour cost of one contractor, kept in step with the payroll
+ * rollup (accrued) and the payments table (paid), so budget burn-down is
+ * a single-row read.
+ */
+@Entity
+@Table(name = "contractor_budget_ledger")
+public class ContractorBudgetLedger {
+
+    @Id
+    @Column(name = "contractor_id")
+    private Long contractorId;
+
+    // Wages earned by the contractor's labours (sum of payroll_month_summary.amount)
+    @Column(nullable = false, precision = 16, scale = 2)
+    private BigDecimal accruedAmount;
+
+    @Column(nullable = false, precision = 16, scale = 2)
+    private BigDecimal paidAmount;
+
+    // First day with accrued cost, the start of the burn-rate window
+    private LocalDate firstAccrualDate;
+
+    private LocalDateTime updatedAt;
+
+    public ContractorBudgetLedger() {}
+
+    public Long getContractorId() { return contractorId; }
+    public void setContractorId(Long contractorId) { this.contractorId = contractorId; }
+    public BigDecimal getAccruedAmount() { return accruedAmount; }
+    public void setAccruedAmount(BigDecimal accruedAmount) { this.accruedAmount = accruedAmount; }
+    public BigDecimal getPaidAmount() { return paidAmount; }
+    public void setPaidAmount(BigDecimal paidAmount) { this.paidAmount = paidAmount; }
+    public LocalDate getFirstAccrualDate() { return firstAccrualDate; }
+    public void setFirstAccrualDate(LocalDate firstAccrualDate) { this.firstAccrualDate = firstAccrualDate; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
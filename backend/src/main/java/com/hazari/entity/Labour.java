@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "labour")
+@Table(name = "labour",
+        indexes = @Index(name = "idx_labour_contractor", columnList = "contractorId"))
 public class Labour {
 
     @Id
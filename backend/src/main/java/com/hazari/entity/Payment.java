@@ -5,13 +5,26 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payments_labour_period",
+                columnNames = {"labour_id", "period_month"}),
+        // Keyset history: newest first per user, covers the projected columns
+        indexes = @Index(name = "idx_payments_user_history",
+                columnList = "userId, paymentDate, id, amount, status"))
 public class Payment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
     private Long userId;
+
+    // Set by the month-end payroll run (first day of the month paid for)
+    @Column(name = "labour_id")
+    private Long labourId;
+
+    @Column(name = "period_month")
+    private LocalDate periodMonth;
+
     private LocalDate paymentDate;
     private BigDecimal amount;
     private String status = "PAID";
@@ -24,6 +37,10 @@ public class Payment {
     public void setId(Long id) { this.id = id; }
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
+    public Long getLabourId() { return labourId; }
+    public void setLabourId(Long labourId) { this.labourId = labourId; }
+    public LocalDate getPeriodMonth() { return periodMonth; }
+    public void setPeriodMonth(LocalDate periodMonth) { this.periodMonth = periodMonth; }
     public LocalDate getPaymentDate() { return paymentDate; }
     public void setPaymentDate(LocalDate paymentDate) { this.paymentDate = paymentDate; }
     public BigDecimal getAmount() { return amount; }
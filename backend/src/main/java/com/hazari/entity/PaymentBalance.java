@@ -0,0 +1,58 @@
+package com.hazari.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Running payment totals per user, updated with every payment insert so the
+ * payment summary never sums history. ytdTotal belongs to balanceYear; a
+ * reader in a later year treats it as zero.
+ */
+@Entity
+@Table(name = "payment_balance")
+public class PaymentBalance {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private int balanceYear;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal ytdTotal;
+
+    @Column(nullable = false, precision = 16, scale = 2)
+    private BigDecimal lifetimeTotal;
+
+    @Column(nullable = false)
+    private long paymentCount;
+
+    private LocalDate lastPaymentDate;
+
+    @Column(precision = 14, scale = 2)
+    private BigDecimal lastPaymentAmount;
+
+    private LocalDateTime updatedAt;
+
+    public PaymentBalance() {}
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public int getBalanceYear() { return balanceYear; }
+    public void setBalanceYear(int balanceYear) { this.balanceYear = balanceYear; }
+    public BigDecimal getYtdTotal() { return ytdTotal; }
+    public void setYtdTotal(BigDecimal ytdTotal) { this.ytdTotal = ytdTotal; }
+    public BigDecimal getLifetimeTotal() { return lifetimeTotal; }
+    public void setLifetimeTotal(BigDecimal lifetimeTotal) { this.lifetimeTotal = lifetimeTotal; }
+    public long getPaymentCount() { return paymentCount; }
+    public void setPaymentCount(long paymentCount) { this.paymentCount = paymentCount; }
+    public LocalDate getLastPaymentDate() { return lastPaymentDate; }
+    public void setLastPaymentDate(LocalDate lastPaymentDate) { this.lastPaymentDate = lastPaymentDate; }
+    public BigDecimal getLastPaymentAmount() { return lastPaymentAmount; }
+    public void setLastPaymentAmount(BigDecimal lastPaymentAmount) { this.lastPaymentAmount = lastPaymentAmount; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,79 @@
+package com.hazari.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Payroll rollup: one row per labour per month, month being its first day.
+ * Recomputed for that labour-month whenever attendance or an approved leave
+ * in it changes, so reading a summary never scans attendance.
+ */
+@Entity
+@Table(name = "payroll_month_summary",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payroll_month_summary_labour_month",
+                columnNames = {"labour_id", "month"}))
+public class PayrollMonthSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "labour_id", nullable = false)
+    private Long labourId;
+
+    @Column(nullable = false)
+    private LocalDate month;
+
+    // Contractor the month's wages accrue to: the labour's contractor when the row was created
+    @Column(name = "contractor_id")
+    private Long contractorId;
+
+    // Days checked in, not counting approved leave days
+    @Column(nullable = false)
+    private int daysWorked;
+
+    @Column(nullable = false)
+    private int leaveDays;
+
+    @Column(nullable = false)
+    private long workedMinutes;
+
+    @Column(nullable = false)
+    private long overtimeMinutes;
+
+    // Labour.dailyRate at the last refresh
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal dailyRate;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount;
+
+    private LocalDateTime updatedAt;
+
+    public PayrollMonthSummary() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getLabourId() { return labourId; }
+    public void setLabourId(Long labourId) { this.labourId = labourId; }
+    public LocalDate getMonth() { return month; }
+    public void setMonth(LocalDate month) { this.month = month; }
+    public Long getContractorId() { return contractorId; }
+    public void setContractorId(Long contractorId) { this.contractorId = contractorId; }
+    public int getDaysWorked() { return daysWorked; }
+    public void setDaysWorked(int daysWorked) { this.daysWorked = daysWorked; }
+    public int getLeaveDays() { return leaveDays; }
+    public void setLeaveDays(int leaveDays) { this.leaveDays = leaveDays; }
+    public long getWorkedMinutes() { return workedMinutes; }
+    public void setWorkedMinutes(long workedMinutes) { this.workedMinutes = workedMinutes; }
+    public long getOvertimeMinutes() { return overtimeMinutes; }
+    public void setOvertimeMinutes(long overtimeMinutes) { this.overtimeMinutes = overtimeMinutes; }
+    public BigDecimal getDailyRate() { return dailyRate; }
+    public void setDailyRate(BigDecimal dailyRate) { this.dailyRate = dailyRate; }
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
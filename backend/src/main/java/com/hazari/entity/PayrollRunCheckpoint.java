@@ -0,0 +1,63 @@
+package com.hazari.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the month-end payroll run, one row per contractor per month.
+ * DONE is written in the same transaction as that contractor's payments,
+ * so a resumed run skips exactly the contractors already paid.
+ */
+@Entity
+@Table(name = "payroll_run_checkpoint",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payroll_run_checkpoint_month_contractor",
+                columnNames = {"month", "contractor_id"}))
+public class PayrollRunCheckpoint {
+
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate month;
+
+    @Column(name = "contractor_id", nullable = false)
+    private Long contractorId;
+
+    @Column(nullable = false)
+    private String status;
+
+    private int labours;
+
+    @Column(precision = 14, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 1000)
+    private String error;
+
+    private LocalDateTime finishedAt;
+
+    public PayrollRunCheckpoint() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public LocalDate getMonth() { return month; }
+    public void setMonth(LocalDate month) { this.month = month; }
+    public Long getContractorId() { return contractorId; }
+    public void setContractorId(Long contractorId) { this.contractorId = contractorId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public int getLabours() { return labours; }
+    public void setLabours(int labours) { this.labours = labours; }
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -0,0 +1,33 @@
+package com.hazari.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Access token revoked before its expiry (logout), by JWT id. Rows are only
+ * needed until the token would have expired anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens",
+        indexes = @Index(name = "idx_revoked_tokens_expires", columnList = "expiresAt"))
+public class RevokedToken {
+
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public RevokedToken() {}
+
+    public RevokedToken(String jti, LocalDateTime expiresAt) {
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getJti() { return jti; }
+    public void setJti(String jti) { this.jti = jti; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,66 @@
+package com.hazari.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Shift rules of one contractor, used to stamp late arrival at check-in and
+ * worked / overtime minutes at check-out. Contractors without a row use the
+ * defaults below.
+ */
+@Entity
+@Table(name = "shift_rule",
+        uniqueConstraints = @UniqueConstraint(name = "uk_shift_rule_contractor", columnNames = "contractor_id"))
+public class ShiftRule {
+
+    public static final LocalTime DEFAULT_SHIFT_START = LocalTime.of(9, 0);
+    public static final int DEFAULT_REGULAR_MINUTES = 480;
+    public static final int DEFAULT_LATE_GRACE_MINUTES = 15;
+    public static final int DEFAULT_BREAK_MINUTES = 0;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "contractor_id", nullable = false)
+    private Long contractorId;
+
+    @Column(nullable = false)
+    private LocalTime shiftStart = DEFAULT_SHIFT_START;
+
+    // Paid minutes per day before overtime starts
+    @Column(nullable = false)
+    private int regularMinutes = DEFAULT_REGULAR_MINUTES;
+
+    // Check-in after shiftStart + grace is late
+    @Column(nullable = false)
+    private int lateGraceMinutes = DEFAULT_LATE_GRACE_MINUTES;
+
+    // Unpaid break deducted from every completed day
+    @Column(nullable = false)
+    private int breakMinutes = DEFAULT_BREAK_MINUTES;
+
+    private LocalDateTime updatedAt;
+
+    public ShiftRule() {}
+
+    public boolean isLate(LocalDateTime timeIn) {
+        return timeIn.toLocalTime().isAfter(shiftStart.plusMinutes(lateGraceMinutes));
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getContractorId() { return contractorId; }
+    public void setContractorId(Long contractorId) { this.contractorId = contractorId; }
+    public LocalTime getShiftStart() { return shiftStart; }
+    public void setShiftStart(LocalTime shiftStart) { this.shiftStart = shiftStart; }
+    public int getRegularMinutes() { return regularMinutes; }
+    public void setRegularMinutes(int regularMinutes) { this.regularMinutes = regularMinutes; }
+    public int getLateGraceMinutes() { return lateGraceMinutes; }
+    public void setLateGraceMinutes(int lateGraceMinutes) { this.lateGraceMinutes = lateGraceMinutes; }
+    public int getBreakMinutes() { return breakMinutes; }
+    public void setBreakMinutes(int breakMinutes) { this.breakMinutes = breakMinutes; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
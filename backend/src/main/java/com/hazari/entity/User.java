@@ -22,6 +22,14 @@ public class User implements UserDetails {
     private String role; // "LABOUR" or "CONTRACTOR"
     private String phone;
 
+    // Bumped on password reset; tokens carrying an older "ver" claim are rejected
+    @Column(nullable = false)
+    private int tokenVersion;
+
+    // Linked Labour.id for LABOUR users, filled by the login lookup (not stored here)
+    @Transient
+    private Long labourId;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_" + role));
@@ -0,0 +1,47 @@
+package com.hazari.repository;
+
+import com.hazari.dto.AttendanceHistoryDto;
+import com.hazari.dto.LabourDaysWorkedDto;
+import com.hazari.entity.AttendanceArchive;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Same read queries as AttendanceRepository, against the cold tier
+public interface AttendanceArchiveRepository extends JpaRepository<AttendanceArchive, Long> {
+
+    @Query("select new com.hazari.dto.AttendanceHistoryDto(a.labourId, a.date, a.timeIn, a.timeOut, "
+            + "coalesce(nullif(a.status, ''), 'PRESENT')) "
+            + "from AttendanceArchive a "
+            + "where a.labourId = :labourId and a.date >= :from and a.date < :before "
+            + "order by a.date desc")
+    List<AttendanceHistoryDto> findHistoryPage(@Param("labourId") Long labourId,
+                                               @Param("from") LocalDate from,
+                                               @Param("before") LocalDate before,
+                                               Pageable page);
+
+    @Query("select new com.hazari.dto.AttendanceHistoryDto(a.labourId, l.name, a.date, a.timeIn, a.timeOut, "
+            + "coalesce(nullif(a.status, ''), 'PRESENT')) "
+            + "from AttendanceArchive a join Labour l on l.id = a.labourId "
+            + "where l.contractorId = :contractorId and a.date >= :from "
+            + "and (a.date < :date or (a.date = :date and a.labourId < :labourId)) "
+            + "order by a.date desc, a.labourId desc")
+    List<AttendanceHistoryDto> findContractorHistoryPage(@Param("contractorId") Long contractorId,
+                                                         @Param("from") LocalDate from,
+                                                         @Param("date") LocalDate date,
+                                                         @Param("labourId") Long labourId,
+                                                         Pageable page);
+
+    @Query("select new com.hazari.dto.LabourDaysWorkedDto(a.labourId, count(a)) "
+            + "from AttendanceArchive a join Labour l on l.id = a.labourId "
+            + "where l.contractorId = :contractorId and a.timeIn is not null "
+            + "and a.date between :from and :to "
+            + "group by a.labourId")
+    List<LabourDaysWorkedDto> countDaysWorkedByContractor(@Param("contractorId") Long contractorId,
+                                                          @Param("from") LocalDate from,
+                                                          @Param("to") LocalDate to);
+}
@@ -0,0 +1,21 @@
+package com.hazari.repository;
+
+import com.hazari.entity.AttendanceDeadLetter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AttendanceDeadLetterRepository extends JpaRepository<AttendanceDeadLetter, Long> {
+
+    // Oldest first, so a replay applies events in the order they happened
+    // Unmatched check-outs only until their day is over; after that a late check-in cannot come
+    @Query("select d from AttendanceDeadLetter d where d.unmatched = false or d.date >= :today "
+            + "order by d.time asc, d.id asc")
+    List<AttendanceDeadLetter> findReplayable(@Param("today") LocalDate today, Pageable pageable);
+}
@@ -0,0 +1,281 @@
+package com.hazari.repository;
+
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.entity.ShiftRule;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plain JDBC writes for the attendance table.
+ * Check-in is a single upsert on the (labour_id, date) unique key and
+ * check-out a single conditional UPDATE, so each is one round trip and
+ * concurrent taps cannot create duplicate rows. JPA cannot batch IDENTITY
+ * inserts, so the bulk paths go through here as well.
+ * The late flag and worked / overtime minutes are set by the same statement
+ * that writes time_in / time_out, from the event's shift rule.
+ */
+@Repository
+public class AttendanceJdbcRepository {
+
+    // Recomputes worked / overtime minutes from the row's final time_in and time_out.
+    // Appended last: MySQL evaluates assignments left to right, so these see the new values.
+    // Parameters: break minutes, regular minutes
+    private static final String RECOMPUTE_MINUTES =
+            "worked_minutes = IF(time_in IS NULL OR time_out IS NULL OR time_out < time_in, NULL, "
+                    + "GREATEST(TIMESTAMPDIFF(MINUTE, time_in, time_out) - ?, 0)), "
+                    + "overtime_minutes = IF(worked_minutes IS NULL, NULL, GREATEST(worked_minutes - ?, 0))";
+
+    // LAST_INSERT_ID(id) makes the driver hand back the existing row id on update
+    private static final String UPSERT_CHECK_IN =
+            "INSERT INTO attendance (labour_id, date, time_in, in_photo_path, in_latitude, in_longitude, late) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id), "
+                    + "time_in = VALUES(time_in), in_photo_path = VALUES(in_photo_path), "
+                    + "in_latitude = VALUES(in_latitude), in_longitude = VALUES(in_longitude), "
+                    + "late = VALUES(late), "
+                    + RECOMPUTE_MINUTES;
+
+    private static final String UPDATE_CHECK_OUT =
+            "UPDATE attendance SET time_out = ?, out_photo_path = ?, out_latitude = ?, out_longitude = ?, "
+                    + RECOMPUTE_MINUTES + " "
+                    + "WHERE labour_id = ? AND date = ? AND time_in IS NOT NULL";
+
+    // Offline sync merge: earliest check-in wins (time_in is assigned after the
+    // columns that compare against it on purpose)
+    private static final String MERGE_CHECK_IN =
+            "INSERT INTO attendance (labour_id, date, time_in, in_photo_path, in_latitude, in_longitude, late) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE "
+                    + "in_photo_path = IF(time_in IS NULL OR VALUES(time_in) < time_in, VALUES(in_photo_path), in_photo_path), "
+                    + "in_latitude = IF(time_in IS NULL OR VALUES(time_in) < time_in, VALUES(in_latitude), in_latitude), "
+                    + "in_longitude = IF(time_in IS NULL OR VALUES(time_in) < time_in, VALUES(in_longitude), in_longitude), "
+                    + "late = IF(time_in IS NULL OR VALUES(time_in) < time_in, VALUES(late), late), "
+                    + "time_in = IF(time_in IS NULL OR VALUES(time_in) < time_in, VALUES(time_in), time_in), "
+                    + RECOMPUTE_MINUTES;
+
+    // Offline sync merge: latest check-out wins
+    private static final String MERGE_CHECK_OUT =
+            "UPDATE attendance SET "
+                    + "out_photo_path = IF(time_out IS NULL OR ? > time_out, ?, out_photo_path), "
+                    + "out_latitude = IF(time_out IS NULL OR ? > time_out, ?, out_latitude), "
+                    + "out_longitude = IF(time_out IS NULL OR ? > time_out, ?, out_longitude), "
+                    + "time_out = IF(time_out IS NULL OR ? > time_out, ?, time_out), "
+                    + RECOMPUTE_MINUTES + " "
+                    + "WHERE labour_id = ? AND date = ? AND time_in IS NOT NULL";
+
+    private static final String MARK_SYNCED =
+            "INSERT IGNORE INTO attendance_sync_event (event_id, labour_id, date, received_at) VALUES (?, ?, ?, ?)";
+
+    // Every attendance column, in the same order in attendance and attendance_archive
+    private static final String ATTENDANCE_COLUMNS =
+            "id, labour_id, date, time_in, time_out, in_photo_path, out_photo_path, "
+                    + "in_latitude, in_longitude, out_latitude, out_longitude, status, "
+                    + "worked_minutes, overtime_minutes, late";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AttendanceJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // ----------------------------------------------------------------------
+    // CHECK-IN: one upsert, returns the attendance row id
+    // ----------------------------------------------------------------------
+    public long upsertCheckIn(AttendanceEvent event) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(UPSERT_CHECK_IN, Statement.RETURN_GENERATED_KEYS);
+            bindCheckIn(ps, event);
+            return ps;
+        }, keyHolder);
+
+        // The driver reports one key per affected row (2 on update); the first is ours
+        return ((Number) keyHolder.getKeyList().get(0).values().iterator().next()).longValue();
+    }
+
+    // ----------------------------------------------------------------------
+    // CHECK-OUT: one conditional update, returns rows updated (0 = no check-in)
+    // ----------------------------------------------------------------------
+    public int checkOut(AttendanceEvent event) {
+        return jdbcTemplate.update(UPDATE_CHECK_OUT, ps -> bindCheckOut(ps, event));
+    }
+
+    // ----------------------------------------------------------------------
+    // BATCH VARIANTS
+    // ----------------------------------------------------------------------
+    @Transactional
+    public void batchCheckIn(List<AttendanceEvent> events) {
+        jdbcTemplate.batchUpdate(UPSERT_CHECK_IN, events, events.size(), this::bindCheckIn);
+    }
+
+    @Transactional
+    public int[] batchCheckOut(List<AttendanceEvent> events) {
+        return jdbcTemplate.batchUpdate(UPDATE_CHECK_OUT, events, events.size(), this::bindCheckOut)[0];
+    }
+
+    private void bindCheckIn(PreparedStatement ps, AttendanceEvent e) throws SQLException {
+        ShiftRule shift = shift(e);
+        ps.setLong(1, e.getLabourId());
+        ps.setDate(2, Date.valueOf(e.getDate()));
+        ps.setTimestamp(3, Timestamp.valueOf(e.getTime()));
+        ps.setString(4, e.getPhotoPath());
+        ps.setObject(5, e.getLatitude());
+        ps.setObject(6, e.getLongitude());
+        ps.setBoolean(7, shift.isLate(e.getTime()));
+        ps.setInt(8, shift.getBreakMinutes());
+        ps.setInt(9, shift.getRegularMinutes());
+    }
+
+    private void bindCheckOut(PreparedStatement ps, AttendanceEvent e) throws SQLException {
+        ShiftRule shift = shift(e);
+        ps.setTimestamp(1, Timestamp.valueOf(e.getTime()));
+        ps.setString(2, e.getPhotoPath());
+        ps.setObject(3, e.getLatitude());
+        ps.setObject(4, e.getLongitude());
+        ps.setInt(5, shift.getBreakMinutes());
+        ps.setInt(6, shift.getRegularMinutes());
+        ps.setLong(7, e.getLabourId());
+        ps.setDate(8, Date.valueOf(e.getDate()));
+    }
+
+    // Events are stamped by ShiftRuleService; an unstamped one gets the defaults
+    private static ShiftRule shift(AttendanceEvent e) {
+        return e.getShift() != null ? e.getShift() : new ShiftRule();
+    }
+
+    // ----------------------------------------------------------------------
+    // OFFLINE SYNC
+    // ----------------------------------------------------------------------
+    public List<String> findSyncedEventIds(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(eventIds.size(), "?"));
+        return jdbcTemplate.queryForList(
+                "SELECT event_id FROM attendance_sync_event WHERE event_id IN (" + placeholders + ")",
+                String.class, eventIds.toArray());
+    }
+
+    @Transactional
+    public void batchMergeCheckIn(List<AttendanceEvent> events) {
+        jdbcTemplate.batchUpdate(MERGE_CHECK_IN, events, events.size(), this::bindCheckIn);
+    }
+
+    /** Rows matched per event (0 = no check-in for that day). */
+    @Transactional
+    public int[] batchMergeCheckOut(List<AttendanceEvent> events) {
+        return jdbcTemplate.batchUpdate(MERGE_CHECK_OUT, events, events.size(), (ps, e) -> {
+            ShiftRule shift = shift(e);
+            Timestamp time = Timestamp.valueOf(e.getTime());
+            ps.setTimestamp(1, time);
+            ps.setString(2, e.getPhotoPath());
+            ps.setTimestamp(3, time);
+            ps.setObject(4, e.getLatitude());
+            ps.setTimestamp(5, time);
+            ps.setObject(6, e.getLongitude());
+            ps.setTimestamp(7, time);
+            ps.setTimestamp(8, time);
+            ps.setInt(9, shift.getBreakMinutes());
+            ps.setInt(10, shift.getRegularMinutes());
+            ps.setLong(11, e.getLabourId());
+            ps.setDate(12, Date.valueOf(e.getDate()));
+        })[0];
+    }
+
+    @Transactional
+    public void markSynced(List<AttendanceEvent> events, LocalDateTime receivedAt) {
+        jdbcTemplate.batchUpdate(MARK_SYNCED, events, events.size(), (ps, e) -> {
+            ps.setString(1, e.getEventId());
+            ps.setLong(2, e.getLabourId());
+            ps.setDate(3, Date.valueOf(e.getDate()));
+            ps.setTimestamp(4, Timestamp.valueOf(receivedAt));
+        });
+    }
+
+    /** Newest date in attendance_archive, null if it is empty (idx_attendance_archive_date). */
+    public LocalDate findNewestArchivedDate() {
+        Date newest = jdbcTemplate.queryForObject("SELECT MAX(date) FROM attendance_archive", Date.class);
+        return newest != null ? newest.toLocalDate() : null;
+    }
+
+    // ----------------------------------------------------------------------
+    // TIERING: move one chunk of rows older than cutoff to the cold tier
+    // Summary + archive insert + delete commit together, so a crash never
+    // counts a row twice or loses it.
+    // ----------------------------------------------------------------------
+    @Transactional
+    public int archiveChunk(LocalDate cutoff, int limit) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM attendance WHERE date < ? ORDER BY id LIMIT ? FOR UPDATE",
+                Long.class, Date.valueOf(cutoff), limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String in = "(" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+        Object[] args = ids.toArray();
+
+        jdbcTemplate.update(
+                "INSERT INTO attendance_month_summary (labour_id, month, days_worked) "
+                        + "SELECT * FROM ("
+                        + "SELECT labour_id, DATE_SUB(date, INTERVAL DAYOFMONTH(date) - 1 DAY) AS month, "
+                        + "SUM(time_in IS NOT NULL) AS days "
+                        + "FROM attendance WHERE id IN " + in + " "
+                        + "GROUP BY labour_id, month) AS s "
+                        + "ON DUPLICATE KEY UPDATE days_worked = days_worked + s.days",
+                args);
+        jdbcTemplate.update(
+                "INSERT INTO attendance_archive (" + ATTENDANCE_COLUMNS + ") "
+                        + "SELECT " + ATTENDANCE_COLUMNS + " FROM attendance WHERE id IN " + in,
+                args);
+        jdbcTemplate.update("DELETE FROM attendance WHERE id IN " + in, args);
+        return ids.size();
+    }
+
+    // ----------------------------------------------------------------------
+    // SCHEMA: the (labour_id, date) unique key every upsert above relies on
+    // ddl-auto cannot add it to a table that already holds duplicates (it only
+    // logs the failure), so it is added here after merging them.
+    // ----------------------------------------------------------------------
+    /**
+     * Adds uk_attendance_labour_date if it is missing, first merging duplicate
+     * (labour_id, date) rows into the lowest id: earliest time_in, latest
+     * time_out, minutes cleared so payroll falls back to the raw span.
+     * Returns the number of duplicate rows deleted, or -1 if the key existed.
+     */
+    @Transactional
+    public int ensureLabourDateKey() {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() "
+                        + "AND table_name = 'attendance' AND index_name = 'uk_attendance_labour_date'",
+                Integer.class);
+        if (existing != null && existing > 0) {
+            return -1;
+        }
+        String duplicates = "SELECT labour_id, date, MIN(id) AS keep_id, MIN(time_in) AS first_in, "
+                + "MAX(time_out) AS last_out FROM attendance GROUP BY labour_id, date HAVING COUNT(*) > 1";
+        jdbcTemplate.update(
+                "UPDATE attendance a JOIN (" + duplicates + ") d ON a.id = d.keep_id "
+                        + "SET a.time_in = d.first_in, a.time_out = d.last_out, "
+                        + "a.worked_minutes = NULL, a.overtime_minutes = NULL");
+        int deleted = jdbcTemplate.update(
+                "DELETE a FROM attendance a JOIN (" + duplicates + ") d "
+                        + "ON a.labour_id = d.labour_id AND a.date = d.date AND a.id <> d.keep_id");
+        jdbcTemplate.execute(
+                "ALTER TABLE attendance ADD CONSTRAINT uk_attendance_labour_date UNIQUE (labour_id, date)");
+        return deleted;
+    }
+}
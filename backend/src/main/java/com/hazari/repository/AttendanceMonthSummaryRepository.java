@@ -0,0 +1,19 @@
+package com.hazari.repository;
+
+import com.hazari.dto.LabourDaysWorkedDto;
+import com.hazari.entity.AttendanceMonthSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface AttendanceMonthSummaryRepository extends JpaRepository<AttendanceMonthSummary, Long> {
+
+    // ✅ All archived days worked per labour of a contractor
+    @Query("select new com.hazari.dto.LabourDaysWorkedDto(s.labourId, sum(s.daysWorked)) "
+            + "from AttendanceMonthSummary s join Labour l on l.id = s.labourId "
+            + "where l.contractorId = :contractorId "
+            + "group by s.labourId")
+    List<LabourDaysWorkedDto> sumDaysWorkedByContractor(@Param("contractorId") Long contractorId);
+}
@@ -1,8 +1,15 @@
 package com.hazari.repository;
 
+import com.hazari.dto.AttendanceHistoryDto;
+import com.hazari.dto.LabourDaysWorkedDto;
+import com.hazari.dto.TodayAttendanceDto;
 import com.hazari.entity.Attendance;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +23,62 @@ List<Attendance> findByDateAndLabourIdIn(LocalDate date, List<Long> labourIds);
 
     // ✅ NEW: Count total days this labour has checked in
     long countByLabourIdAndTimeInIsNotNull(Long labourId);
+
+    // ✅ Today's rows joined with labour names, already sorted - one query
+    @Query("select new com.hazari.dto.TodayAttendanceDto(a.labourId, "
+            + "coalesce(l.name, concat('Labour #', cast(a.labourId as String))), "
+            + "coalesce(nullif(a.status, ''), 'PRESENT'), a.timeIn, a.timeOut) "
+            + "from Attendance a left join Labour l on l.id = a.labourId "
+            + "where a.date = :date "
+            + "order by l.name")
+    List<TodayAttendanceDto> findTodayRows(@Param("date") LocalDate date);
+
+    // ✅ Today's rows written since a point in time (any instance), with their updated_at last
+    @Query("select a.labourId, coalesce(nullif(a.status, ''), 'PRESENT'), a.timeIn, a.timeOut, a.updatedAt "
+            + "from Attendance a where a.date = :date and a.updatedAt > :since")
+    List<Object[]> findDayRowsChangedSince(@Param("date") LocalDate date, @Param("since") LocalDateTime since);
+
+    // ✅ Same, filtered by labour.contractorId in SQL
+    @Query("select new com.hazari.dto.TodayAttendanceDto(a.labourId, l.name, "
+            + "coalesce(nullif(a.status, ''), 'PRESENT'), a.timeIn, a.timeOut) "
+            + "from Attendance a join Labour l on l.id = a.labourId "
+            + "where a.date = :date and l.contractorId = :contractorId "
+            + "order by l.name")
+    List<TodayAttendanceDto> findTodayRowsForContractor(@Param("date") LocalDate date,
+                                                        @Param("contractorId") Long contractorId);
+
+    // ✅ Days worked for every labour of a contractor in a date range - one GROUP BY
+    @Query("select new com.hazari.dto.LabourDaysWorkedDto(a.labourId, count(a)) "
+            + "from Attendance a join Labour l on l.id = a.labourId "
+            + "where l.contractorId = :contractorId and a.timeIn is not null "
+            + "and a.date between :from and :to "
+            + "group by a.labourId")
+    List<LabourDaysWorkedDto> countDaysWorkedByContractor(@Param("contractorId") Long contractorId,
+                                                          @Param("from") LocalDate from,
+                                                          @Param("to") LocalDate to);
+
+    // ✅ History for one labour, newest first, seeking from :before (exclusive).
+    // Served entirely from idx_attendance_history.
+    @Query("select new com.hazari.dto.AttendanceHistoryDto(a.labourId, a.date, a.timeIn, a.timeOut, "
+            + "coalesce(nullif(a.status, ''), 'PRESENT')) "
+            + "from Attendance a "
+            + "where a.labourId = :labourId and a.date >= :from and a.date < :before "
+            + "order by a.date desc")
+    List<AttendanceHistoryDto> findHistoryPage(@Param("labourId") Long labourId,
+                                               @Param("from") LocalDate from,
+                                               @Param("before") LocalDate before,
+                                               Pageable page);
+
+    // ✅ History for all labours of a contractor, newest first, seeking past (date, labourId)
+    @Query("select new com.hazari.dto.AttendanceHistoryDto(a.labourId, l.name, a.date, a.timeIn, a.timeOut, "
+            + "coalesce(nullif(a.status, ''), 'PRESENT')) "
+            + "from Attendance a join Labour l on l.id = a.labourId "
+            + "where l.contractorId = :contractorId and a.date >= :from "
+            + "and (a.date < :date or (a.date = :date and a.labourId < :labourId)) "
+            + "order by a.date desc, a.labourId desc")
+    List<AttendanceHistoryDto> findContractorHistoryPage(@Param("contractorId") Long contractorId,
+                                                         @Param("from") LocalDate from,
+                                                         @Param("date") LocalDate date,
+                                                         @Param("labourId") Long labourId,
+                                                         Pageable page);
 }
@@ -0,0 +1,176 @@
+package com.hazari.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC writes for contractor_budget_ledger. Callers pass per-contractor
+ * deltas and run inside their own transaction, so the ledger commits with the
+ * rows it summarises.
+ */
+@Repository
+public class ContractorBudgetJdbcRepository {
+
+    private static final String ADD =
+            "INSERT INTO contractor_budget_ledger (contractor_id, accrued_amount, paid_amount, first_accrual_date, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE accrued_amount = accrued_amount + VALUES(accrued_amount), "
+                    + "paid_amount = paid_amount + VALUES(paid_amount), "
+                    + "first_accrual_date = COALESCE(first_accrual_date, VALUES(first_accrual_date)), "
+                    + "updated_at = VALUES(updated_at)";
+
+    private static final String SET =
+            "INSERT INTO contractor_budget_ledger (contractor_id, accrued_amount, paid_amount, first_accrual_date, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE accrued_amount = VALUES(accrued_amount), "
+                    + "paid_amount = VALUES(paid_amount), "
+                    + "first_accrual_date = COALESCE(first_accrual_date, VALUES(first_accrual_date)), "
+                    + "updated_at = VALUES(updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ContractorBudgetJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void addAccrued(Map<Long, BigDecimal> deltaByContractor) {
+        add(deltaByContractor, true);
+    }
+
+    public void addPaid(Map<Long, BigDecimal> deltaByContractor) {
+        add(deltaByContractor, false);
+    }
+
+    private void add(Map<Long, BigDecimal> deltaByContractor, boolean accrued) {
+        List<Object[]> args = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Date today = Date.valueOf(LocalDate.now());
+        deltaByContractor.forEach((contractorId, delta) -> {
+            if (contractorId != null && delta.signum() != 0) {
+                args.add(new Object[] {
+                        contractorId,
+                        accrued ? delta : BigDecimal.ZERO,
+                        accrued ? BigDecimal.ZERO : delta,
+                        accrued ? today : null,
+                        now
+                });
+            }
+        });
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD, args);
+        }
+    }
+
+    /**
+     * labourId -> contractor that month accrued to (the rollup row's contractor,
+     * else the labour's), so payments land on the same ledger row as the wages.
+     */
+    public Map<Long, Long> findAccrualContractorIds(LocalDate month, Collection<Long> labourIds) {
+        Map<Long, Long> result = new HashMap<>();
+        if (labourIds.isEmpty()) {
+            return result;
+        }
+        String in = String.join(",", Collections.nCopies(labourIds.size(), "?"));
+        List<Object> args = new ArrayList<>();
+        args.add(Date.valueOf(month));
+        args.addAll(labourIds);
+        jdbcTemplate.query(
+                "SELECT l.id, COALESCE(s.contractor_id, l.contractor_id) AS contractor_id FROM labour l "
+                        + "LEFT JOIN payroll_month_summary s ON s.labour_id = l.id AND s.month = ? "
+                        + "WHERE l.id IN (" + in + ")",
+                rs -> {
+                    Long contractorId = rs.getObject("contractor_id", Long.class);
+                    if (contractorId != null) {
+                        result.put(rs.getLong("id"), contractorId);
+                    }
+                },
+                args.toArray());
+        return result;
+    }
+
+    /**
+     * One-off build of the ledger from the payroll rollup and payments written
+     * before the ledger existed. Does nothing once any ledger row exists.
+     */
+    @Transactional
+    public int rebuildIfEmpty() {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM contractor_budget_ledger", Integer.class);
+        if (rows != null && rows > 0) {
+            return 0;
+        }
+        return reconcile();
+    }
+
+    /**
+     * Recomputes every contractor's accrued and paid totals from the rollup and
+     * payments and overwrites the rows that drifted. Returns how many did.
+     *
+     * The ledger rows are locked first. A refresh that has already changed the
+     * rollup but not yet the ledger is not in this transaction's snapshot and
+     * adds its delta once this commits, so it is counted exactly once.
+     */
+    @Transactional
+    public int reconcile() {
+        Map<Long, BigDecimal[]> ledger = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT contractor_id, accrued_amount, paid_amount FROM contractor_budget_ledger FOR UPDATE",
+                rs -> {
+                    ledger.put(rs.getLong("contractor_id"),
+                            new BigDecimal[] {rs.getBigDecimal("accrued_amount"), rs.getBigDecimal("paid_amount")});
+                });
+
+        Map<Long, BigDecimal[]> actual = new HashMap<>();
+        Map<Long, Date> firstAccrual = new HashMap<>();
+        jdbcTemplate.query(
+                // Rollup rows from before contractor_id existed accrue to the labour's contractor
+                "SELECT COALESCE(s.contractor_id, l.contractor_id) AS contractor_id, SUM(s.amount) AS total, "
+                        + "MIN(IF(s.amount > 0, s.month, NULL)) AS first_month "
+                        + "FROM payroll_month_summary s JOIN labour l ON l.id = s.labour_id "
+                        + "WHERE COALESCE(s.contractor_id, l.contractor_id) IS NOT NULL "
+                        + "GROUP BY COALESCE(s.contractor_id, l.contractor_id)",
+                rs -> {
+                    actual.computeIfAbsent(rs.getLong("contractor_id"), k -> zeros())[0] = rs.getBigDecimal("total");
+                    firstAccrual.put(rs.getLong("contractor_id"), rs.getDate("first_month"));
+                });
+        jdbcTemplate.query(
+                "SELECT COALESCE(s.contractor_id, l.contractor_id) AS contractor_id, SUM(p.amount) AS total "
+                        + "FROM payments p JOIN labour l ON l.id = p.labour_id "
+                        + "LEFT JOIN payroll_month_summary s ON s.labour_id = p.labour_id AND s.month = p.period_month "
+                        + "WHERE COALESCE(s.contractor_id, l.contractor_id) IS NOT NULL "
+                        + "GROUP BY COALESCE(s.contractor_id, l.contractor_id)",
+                rs -> {
+                    actual.computeIfAbsent(rs.getLong("contractor_id"), k -> zeros())[1] = rs.getBigDecimal("total");
+                });
+        ledger.keySet().forEach(contractorId -> actual.computeIfAbsent(contractorId, k -> zeros()));
+
+        List<Object[]> args = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        actual.forEach((contractorId, totals) -> {
+            BigDecimal[] stored = ledger.get(contractorId);
+            if (stored == null || stored[0].compareTo(totals[0]) != 0 || stored[1].compareTo(totals[1]) != 0) {
+                args.add(new Object[] {contractorId, totals[0], totals[1], firstAccrual.get(contractorId), now});
+            }
+        });
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET, args);
+        }
+        return args.size();
+    }
+
+    private static BigDecimal[] zeros() {
+        return new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO};
+    }
+}
@@ -0,0 +1,7 @@
+package com.hazari.repository;
+
+import com.hazari.entity.ContractorBudgetLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ContractorBudgetLedgerRepository extends JpaRepository<ContractorBudgetLedger, Long> {
+}
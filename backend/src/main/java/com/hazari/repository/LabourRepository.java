@@ -3,7 +3,11 @@ package com.hazari.repository;
 
 import com.hazari.entity.Labour;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +18,9 @@ public interface LabourRepository extends JpaRepository<Labour, Long> {
     Optional<Labour> findByUserId(Long userId);
     Optional<Labour> findByPhone(String phone);
 
+    // Legacy rows created before Labour.userId existed (link backfill)
+    Optional<Labour> findFirstByPhoneAndUserIdIsNullOrderByIdAsc(String phone);
+
 
     
     
@@ -25,4 +32,16 @@ public interface LabourRepository extends JpaRepository<Labour, Long> {
     
     // Active labours (not on leave)
     List<Labour> findByIsActiveTrue();
+
+    // [labourId, contractorId] pairs (shift rule lookup)
+    @Query("select l.id, l.contractorId from Labour l where l.id in :ids")
+    List<Object[]> findContractorIdsByIds(@Param("ids") Collection<Long> ids);
+
+    // Which of these ids exist (ids only, no entities loaded)
+    @Query("select l.id from Labour l where l.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Keyset page of labour ids, for jobs that walk every labour
+    @Query("select l.id from Labour l where l.id > :afterId order by l.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,77 @@
+package com.hazari.repository;
+
+import com.hazari.dto.MusterRollRowDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+/**
+ * Forward-only, row-by-row reads for the muster-roll export.
+ *
+ * MySQL Connector/J only streams a result set when the fetch size is
+ * Integer.MIN_VALUE; any other value buffers the whole result in the driver.
+ * The hot-only query walks idx_labour_contractor and then the (labour_id,
+ * date) index, so rows come out in (labour_id, date) order without a sort and
+ * the first row is sent before the last one is read. A range that reaches the
+ * archive reads both tiers in one UNION ALL statement: one consistent
+ * snapshot, so a row being archived meanwhile shows up exactly once, at the
+ * cost of the server sorting that contractor-month.
+ *
+ * A stream holds its connection until it is closed: always use
+ * try-with-resources.
+ */
+@Repository
+public class MusterRollJdbcRepository {
+
+    private static final String TIER =
+            "SELECT l.id, l.name, l.phone, a.date, a.time_in, a.time_out, "
+                    + "COALESCE(NULLIF(a.status, ''), 'PRESENT') AS status, "
+                    + "a.worked_minutes, a.overtime_minutes, a.late "
+                    + "FROM labour l JOIN %s a ON a.labour_id = l.id "
+                    + "WHERE l.contractor_id = ? AND a.date >= ? AND a.date < ?";
+
+    private static final String HOT_ROWS = String.format(TIER, "attendance") + " ORDER BY l.id, a.date";
+
+    private static final String ALL_ROWS = String.format(TIER, "attendance") + " UNION ALL "
+            + String.format(TIER, "attendance_archive") + " ORDER BY id, date";
+
+    private static final RowMapper<MusterRollRowDto> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp timeIn = rs.getTimestamp("time_in");
+        Timestamp timeOut = rs.getTimestamp("time_out");
+        return new MusterRollRowDto(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("phone"),
+                rs.getDate("date").toLocalDate(),
+                timeIn != null ? timeIn.toLocalDateTime() : null,
+                timeOut != null ? timeOut.toLocalDateTime() : null,
+                rs.getString("status"),
+                rs.getObject("worked_minutes", Integer.class),
+                rs.getObject("overtime_minutes", Integer.class),
+                rs.getObject("late", Boolean.class));
+    };
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public MusterRollJdbcRepository(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /** Rows in (labour_id, date) order; withArchive adds attendance_archive in the same statement. */
+    public Stream<MusterRollRowDto> stream(Long contractorId, LocalDate from, LocalDate to, boolean withArchive) {
+        Date start = Date.valueOf(from);
+        Date end = Date.valueOf(to);
+        if (!withArchive) {
+            return streamingJdbcTemplate.queryForStream(HOT_ROWS, ROW_MAPPER, contractorId, start, end);
+        }
+        return streamingJdbcTemplate.queryForStream(ALL_ROWS, ROW_MAPPER,
+                contractorId, start, end, contractorId, start, end);
+    }
+}
@@ -0,0 +1,7 @@
+package com.hazari.repository;
+
+import com.hazari.entity.PaymentBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PaymentBalanceRepository extends JpaRepository<PaymentBalance, Long> {
+}
@@ -0,0 +1,119 @@
+package com.hazari.repository;
+
+import com.hazari.entity.Payment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Plain JDBC writes for the payments table. Payment ids are IDENTITY, which
+ * Hibernate never batches, so bulk inserts from the payroll run go through here.
+ * Every insert also folds the payment into the user's payment_balance row and
+ * the contractor's budget ledger in the same transaction.
+ */
+@Repository
+public class PaymentJdbcRepository {
+
+    // A labour is paid at most once per period (uk_payments_labour_period)
+    private static final String INSERT_PAYMENT =
+            "INSERT INTO payments (user_id, labour_id, period_month, payment_date, amount, status) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // balance_year is assigned last on purpose (MySQL evaluates assignments left to right)
+    private static final String ADD_TO_BALANCE =
+            "INSERT INTO payment_balance (user_id, balance_year, ytd_total, lifetime_total, payment_count, "
+                    + "last_payment_date, last_payment_amount, updated_at) "
+                    + "VALUES (?, ?, ?, ?, 1, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE "
+                    + "ytd_total = IF(VALUES(balance_year) = balance_year, ytd_total + VALUES(ytd_total), "
+                    + "IF(VALUES(balance_year) > balance_year, VALUES(ytd_total), ytd_total)), "
+                    + "lifetime_total = lifetime_total + VALUES(lifetime_total), "
+                    + "payment_count = payment_count + 1, "
+                    + "last_payment_amount = IF(last_payment_date IS NULL OR VALUES(last_payment_date) >= last_payment_date, "
+                    + "VALUES(last_payment_amount), last_payment_amount), "
+                    + "last_payment_date = IF(last_payment_date IS NULL OR VALUES(last_payment_date) >= last_payment_date, "
+                    + "VALUES(last_payment_date), last_payment_date), "
+                    + "updated_at = VALUES(updated_at), "
+                    + "balance_year = GREATEST(balance_year, VALUES(balance_year))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContractorBudgetJdbcRepository budgetJdbcRepository;
+
+    public PaymentJdbcRepository(JdbcTemplate jdbcTemplate,
+                                 ContractorBudgetJdbcRepository budgetJdbcRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.budgetJdbcRepository = budgetJdbcRepository;
+    }
+
+    @Transactional
+    public void batchInsert(List<Payment> payments, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_PAYMENT, payments, batchSize, (ps, p) -> {
+            ps.setObject(1, p.getUserId());
+            ps.setLong(2, p.getLabourId());
+            ps.setDate(3, Date.valueOf(p.getPeriodMonth()));
+            ps.setDate(4, Date.valueOf(p.getPaymentDate()));
+            ps.setBigDecimal(5, p.getAmount());
+            ps.setString(6, p.getStatus());
+        });
+
+        List<Payment> withUser = payments.stream().filter(p -> p.getUserId() != null).toList();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(ADD_TO_BALANCE, withUser, batchSize, (ps, p) -> {
+            ps.setLong(1, p.getUserId());
+            ps.setInt(2, p.getPaymentDate().getYear());
+            ps.setBigDecimal(3, p.getAmount());
+            ps.setBigDecimal(4, p.getAmount());
+            ps.setDate(5, Date.valueOf(p.getPaymentDate()));
+            ps.setBigDecimal(6, p.getAmount());
+            ps.setTimestamp(7, now);
+        });
+
+        // Paid side of the budget ledger, on the contractor the month accrued to
+        Map<LocalDate, List<Payment>> byMonth = payments.stream()
+                .filter(p -> p.getLabourId() != null)
+                .collect(Collectors.groupingBy(Payment::getPeriodMonth));
+        Map<Long, BigDecimal> paid = new HashMap<>();
+        byMonth.forEach((month, monthPayments) -> {
+            Map<Long, Long> contractorByLabour = budgetJdbcRepository.findAccrualContractorIds(month,
+                    monthPayments.stream().map(Payment::getLabourId).collect(Collectors.toSet()));
+            for (Payment p : monthPayments) {
+                Long contractorId = contractorByLabour.get(p.getLabourId());
+                if (contractorId != null) {
+                    paid.merge(contractorId, p.getAmount(), BigDecimal::add);
+                }
+            }
+        });
+        budgetJdbcRepository.addPaid(paid);
+    }
+
+    /**
+     * One-off backfill of payment_balance from payment history, for payments
+     * written before the balance table existed. Does nothing once any balance exists.
+     */
+    @Transactional
+    public int rebuildBalancesIfEmpty() {
+        Integer balances = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payment_balance", Integer.class);
+        if (balances != null && balances > 0) {
+            return 0;
+        }
+        return jdbcTemplate.update(
+                "INSERT INTO payment_balance (user_id, balance_year, ytd_total, lifetime_total, payment_count, "
+                        + "last_payment_date, last_payment_amount, updated_at) "
+                        + "SELECT p.user_id, YEAR(CURDATE()), "
+                        + "SUM(IF(YEAR(p.payment_date) = YEAR(CURDATE()), COALESCE(p.amount, 0), 0)), "
+                        + "SUM(COALESCE(p.amount, 0)), COUNT(*), MAX(p.payment_date), "
+                        + "(SELECT q.amount FROM payments q WHERE q.user_id = p.user_id "
+                        + "ORDER BY q.payment_date DESC, q.id DESC LIMIT 1), NOW() "
+                        + "FROM payments p WHERE p.user_id IS NOT NULL GROUP BY p.user_id");
+    }
+}
@@ -1,12 +1,29 @@
 // src/main/java/com/hazari/repository/PaymentRepository.java
 package com.hazari.repository;
 
+import com.hazari.dto.PaymentHistoryDto;
 import com.hazari.entity.Payment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByUserIdOrderByPaymentDateDesc(Long userId);
+
+    // ✅ Payment history, newest first, seeking past (paymentDate, id)
+    @Query("select new com.hazari.dto.PaymentHistoryDto(p.id, p.paymentDate, p.amount, p.status) "
+            + "from Payment p "
+            + "where p.userId = :userId "
+            + "and (p.paymentDate < :date or (p.paymentDate = :date and p.id < :id)) "
+            + "order by p.paymentDate desc, p.id desc")
+    List<PaymentHistoryDto> findHistoryPage(@Param("userId") Long userId,
+                                            @Param("date") LocalDate date,
+                                            @Param("id") Long id,
+                                            Pageable page);
 }
@@ -0,0 +1,248 @@
+package com.hazari.repository;
+
+import com.hazari.entity.Payment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Plain JDBC writes for payroll_month_summary.
+ * A refresh recomputes one labour-month from its source rows in a single
+ * INSERT ... SELECT: at most 31 attendance rows (hot and archived, read
+ * through the (labour_id, date) index) plus that labour's approved leaves.
+ * Recomputing instead of adding deltas keeps repeated check-outs and leave
+ * approvals idempotent.
+ *
+ * The change in amount per contractor is added to contractor_budget_ledger in
+ * the same transaction. A refresh first locks the labour rows (in id order),
+ * which always exist, so refreshes of the same labour run one at a time even
+ * for a month with no rollup row yet; it then inserts any missing rows as
+ * zero placeholders and reads the old amounts, so a delta is never counted
+ * twice and no shared lock from a racing insert is ever upgraded. The delta
+ * goes to the row's contractor_id, set when the row is created, so a labour
+ * who changes contractor does not move old months' wages with them.
+ */
+@Repository
+public class PayrollJdbcRepository {
+
+    // Parameters: month, [labour, from, to] x2, [to-1, from, labour, to-1, from], labour
+    private static final String REFRESH_MONTH =
+            "INSERT INTO payroll_month_summary "
+                    + "(labour_id, month, days_worked, leave_days, worked_minutes, overtime_minutes, daily_rate, amount, updated_at) "
+                    + "SELECT * FROM ("
+                    + "SELECT l.id AS labour_id, ? AS month, "
+                    + "COALESCE(w.days, 0) AS days_worked, "
+                    + "COALESCE(lv.days, 0) AS leave_days, "
+                    + "COALESCE(w.minutes, 0) AS worked_minutes, "
+                    + "COALESCE(w.overtime, 0) AS overtime_minutes, "
+                    + "CAST(COALESCE(l.daily_rate, 0) AS DECIMAL(12,2)) AS daily_rate, "
+                    + "COALESCE(w.days, 0) * CAST(COALESCE(l.daily_rate, 0) AS DECIMAL(12,2)) AS amount, "
+                    + "NOW() AS updated_at "
+                    + "FROM labour l "
+                    + "CROSS JOIN ("
+                    + "SELECT COUNT(*) AS days, "
+                    // worked_minutes is stamped at check-out; rows older than that fall back to the raw span
+                    + "SUM(COALESCE(t.worked_minutes, "
+                    + "IF(t.time_out > t.time_in, TIMESTAMPDIFF(MINUTE, t.time_in, t.time_out), 0))) AS minutes, "
+                    + "SUM(COALESCE(t.overtime_minutes, 0)) AS overtime "
+                    + "FROM ("
+                    + "SELECT labour_id, date, time_in, time_out, worked_minutes, overtime_minutes FROM attendance "
+                    + "WHERE labour_id = ? AND date >= ? AND date < ? AND time_in IS NOT NULL "
+                    + "UNION ALL "
+                    + "SELECT labour_id, date, time_in, time_out, worked_minutes, overtime_minutes FROM attendance_archive "
+                    + "WHERE labour_id = ? AND date >= ? AND date < ? AND time_in IS NOT NULL"
+                    + ") t "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM leaves v WHERE v.labour_id = t.labour_id "
+                    + "AND v.status = 'APPROVED' AND t.date BETWEEN v.start_date AND v.end_date)"
+                    + ") w "
+                    + "CROSS JOIN ("
+                    + "SELECT SUM(DATEDIFF(LEAST(end_date, ?), GREATEST(start_date, ?)) + 1) AS days "
+                    + "FROM leaves WHERE labour_id = ? AND status = 'APPROVED' "
+                    + "AND start_date <= ? AND end_date >= ?"
+                    + ") lv "
+                    + "WHERE l.id = ?"
+                    + ") AS s "
+                    + "ON DUPLICATE KEY UPDATE days_worked = s.days_worked, leave_days = s.leave_days, "
+                    + "worked_minutes = s.worked_minutes, overtime_minutes = s.overtime_minutes, daily_rate = s.daily_rate, "
+                    + "amount = s.amount, updated_at = s.updated_at";
+
+    // Creates the row with zero amounts if missing; also fills contractor_id on rows from
+    // before the column existed. Parameters: month, labour
+    private static final String ENSURE_MONTH =
+            "INSERT INTO payroll_month_summary "
+                    + "(labour_id, month, contractor_id, days_worked, leave_days, worked_minutes, overtime_minutes, daily_rate, amount, updated_at) "
+                    + "SELECT * FROM ("
+                    + "SELECT id AS labour_id, ? AS month, contractor_id, 0 AS d, 0 AS lv, 0 AS wm, 0 AS om, 0 AS r, 0 AS a, NOW() AS u "
+                    + "FROM labour WHERE id = ?"
+                    + ") AS s "
+                    + "ON DUPLICATE KEY UPDATE contractor_id = COALESCE(payroll_month_summary.contractor_id, s.contractor_id)";
+
+    private static final String SAVE_CHECKPOINT =
+            "INSERT INTO payroll_run_checkpoint (month, contractor_id, status, labours, amount, error, finished_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE status = VALUES(status), labours = VALUES(labours), "
+                    + "amount = VALUES(amount), error = VALUES(error), finished_at = VALUES(finished_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContractorBudgetJdbcRepository budgetJdbcRepository;
+
+    public PayrollJdbcRepository(JdbcTemplate jdbcTemplate,
+                                 ContractorBudgetJdbcRepository budgetJdbcRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.budgetJdbcRepository = budgetJdbcRepository;
+    }
+
+    // ----------------------------------------------------------------------
+    // REFRESH: one labour-month, or many in one batch
+    // ----------------------------------------------------------------------
+    @Transactional
+    public void refreshMonth(Long labourId, LocalDate month) {
+        refresh(Map.of(labourId, Set.of(month)));
+    }
+
+    /** month values must be first days of months. */
+    @Transactional
+    public void refreshMonths(Map<Long, Set<LocalDate>> monthsByLabour) {
+        refresh(monthsByLabour);
+    }
+
+    private void refresh(Map<Long, Set<LocalDate>> monthsByLabour) {
+        List<Object[]> placeholders = new ArrayList<>();
+        List<Object[]> args = new ArrayList<>();
+        List<Object> keys = new ArrayList<>();
+        // Same order in every transaction
+        new TreeMap<>(monthsByLabour).forEach((labourId, months) -> {
+            for (LocalDate month : new TreeSet<>(months)) {
+                placeholders.add(new Object[] {Date.valueOf(month), labourId});
+                args.add(refreshArgs(labourId, month));
+                keys.add(labourId);
+                keys.add(Date.valueOf(month));
+            }
+        });
+        if (args.isEmpty()) {
+            return;
+        }
+        List<Long> labourIds = new ArrayList<>(new TreeSet<>(monthsByLabour.keySet()));
+        jdbcTemplate.queryForList(
+                "SELECT id FROM labour WHERE id IN (" + String.join(",", Collections.nCopies(labourIds.size(), "?"))
+                        + ") ORDER BY id FOR UPDATE",
+                Long.class, labourIds.toArray());
+        jdbcTemplate.batchUpdate(ENSURE_MONTH, placeholders);
+        Map<Long, BigDecimal> before = amountsByContractor(keys);
+        jdbcTemplate.batchUpdate(REFRESH_MONTH, args);
+        Map<Long, BigDecimal> delta = amountsByContractor(keys);
+        before.forEach((contractorId, amount) -> delta.merge(contractorId, amount.negate(), BigDecimal::add));
+        budgetJdbcRepository.addAccrued(delta);
+    }
+
+    // Sum of the given (labour, month) amounts per contractor; keys are flattened pairs.
+    // A locking read, so it sees the latest committed rows whatever snapshot the caller holds.
+    private Map<Long, BigDecimal> amountsByContractor(List<Object> keys) {
+        String pairs = String.join(",", Collections.nCopies(keys.size() / 2, "(?, ?)"));
+        Map<Long, BigDecimal> result = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT contractor_id, amount FROM payroll_month_summary "
+                        + "WHERE contractor_id IS NOT NULL AND (labour_id, month) IN (" + pairs + ") FOR UPDATE",
+                rs -> {
+                    result.merge(rs.getLong("contractor_id"), rs.getBigDecimal("amount"), BigDecimal::add);
+                },
+                keys.toArray());
+        return result;
+    }
+
+    private static Object[] refreshArgs(Long labourId, LocalDate month) {
+        Date from = Date.valueOf(month);
+        Date to = Date.valueOf(month.plusMonths(1));
+        Date last = Date.valueOf(month.plusMonths(1).minusDays(1));
+        return new Object[] {
+                from,
+                labourId, from, to,
+                labourId, from, to,
+                last, from, labourId, last, from,
+                labourId
+        };
+    }
+
+    /** Labour-months from fromMonth on whose stored daily_rate differs from the labour row. */
+    public Map<Long, Set<LocalDate>> findRateDrift(LocalDate fromMonth) {
+        Map<Long, Set<LocalDate>> result = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT s.labour_id, s.month FROM payroll_month_summary s "
+                        + "JOIN labour l ON l.id = s.labour_id "
+                        + "WHERE s.month >= ? AND s.daily_rate <> CAST(COALESCE(l.daily_rate, 0) AS DECIMAL(12,2))",
+                rs -> {
+                    result.computeIfAbsent(rs.getLong("labour_id"), k -> new HashSet<>())
+                            .add(rs.getDate("month").toLocalDate());
+                },
+                Date.valueOf(fromMonth));
+        return result;
+    }
+
+    // ----------------------------------------------------------------------
+    // MONTH-END RUN
+    // ----------------------------------------------------------------------
+    // A month is paid by the contractor it accrued to (the row's contractor_id,
+    // the labour's current one for rows from before the column existed), so a
+    // labour who changed contractor is paid once, under the old one.
+
+    /** Current contractors of any labour, plus those the month accrued to. */
+    public List<Long> findContractorIds(LocalDate month) {
+        return jdbcTemplate.queryForList(
+                "SELECT contractor_id FROM labour WHERE contractor_id IS NOT NULL "
+                        + "UNION "
+                        + "SELECT COALESCE(s.contractor_id, l.contractor_id) FROM payroll_month_summary s "
+                        + "JOIN labour l ON l.id = s.labour_id "
+                        + "WHERE s.month = ? AND COALESCE(s.contractor_id, l.contractor_id) IS NOT NULL "
+                        + "ORDER BY 1",
+                Long.class, Date.valueOf(month));
+    }
+
+    /** Labours to refresh before paying the contractor: its labours now, plus those whose month accrued to it. */
+    public List<Long> findLabourIds(Long contractorId, LocalDate month) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM labour WHERE contractor_id = ? "
+                        + "UNION "
+                        + "SELECT labour_id FROM payroll_month_summary WHERE contractor_id = ? AND month = ?",
+                Long.class, contractorId, contractorId, Date.valueOf(month));
+    }
+
+    /** Unsaved payments for every labour-month accrued to the contractor with something to pay and not yet paid. */
+    public List<Payment> findPayable(Long contractorId, LocalDate month) {
+        return jdbcTemplate.query(
+                "SELECT s.labour_id, l.user_id, s.amount FROM payroll_month_summary s "
+                        + "JOIN labour l ON l.id = s.labour_id "
+                        + "WHERE COALESCE(s.contractor_id, l.contractor_id) = ? AND s.month = ? AND s.amount > 0 "
+                        + "AND NOT EXISTS (SELECT 1 FROM payments p "
+                        + "WHERE p.labour_id = s.labour_id AND p.period_month = s.month)",
+                (rs, rowNum) -> {
+                    Payment payment = new Payment();
+                    payment.setLabourId(rs.getLong("labour_id"));
+                    payment.setUserId(rs.getObject("user_id", Long.class));
+                    payment.setPeriodMonth(month);
+                    payment.setAmount(rs.getBigDecimal("amount"));
+                    return payment;
+                },
+                contractorId, Date.valueOf(month));
+    }
+
+    public void saveCheckpoint(LocalDate month, Long contractorId, String status,
+                               int labours, BigDecimal amount, String error) {
+        jdbcTemplate.update(SAVE_CHECKPOINT, Date.valueOf(month), contractorId, status, labours, amount,
+                error, Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
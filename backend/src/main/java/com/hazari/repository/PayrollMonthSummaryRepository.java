@@ -0,0 +1,12 @@
+package com.hazari.repository;
+
+import com.hazari.entity.PayrollMonthSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface PayrollMonthSummaryRepository extends JpaRepository<PayrollMonthSummary, Long> {
+
+    Optional<PayrollMonthSummary> findByLabourIdAndMonth(Long labourId, LocalDate month);
+}
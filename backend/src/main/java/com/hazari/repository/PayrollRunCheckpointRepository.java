@@ -0,0 +1,15 @@
+package com.hazari.repository;
+
+import com.hazari.entity.PayrollRunCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PayrollRunCheckpointRepository extends JpaRepository<PayrollRunCheckpoint, Long> {
+
+    @Query("select c.contractorId from PayrollRunCheckpoint c where c.month = :month and c.status = :status")
+    List<Long> findContractorIds(@Param("month") LocalDate month, @Param("status") String status);
+}
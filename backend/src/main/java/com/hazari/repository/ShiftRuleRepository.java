@@ -0,0 +1,15 @@
+package com.hazari.repository;
+
+import com.hazari.entity.ShiftRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ShiftRuleRepository extends JpaRepository<ShiftRule, Long> {
+
+    Optional<ShiftRule> findByContractorId(Long contractorId);
+
+    List<ShiftRule> findByContractorIdIn(Collection<Long> contractorIds);
+}
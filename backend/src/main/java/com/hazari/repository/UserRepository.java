@@ -3,11 +3,28 @@ package com.hazari.repository;
 
 import com.hazari.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByPhone(String phone);
+
+    // [user, labourId] in one round trip (labourId null if no Labour is linked)
+    @Query("select u, l.id from User u left join Labour l on l.userId = u.id "
+            + "where u.username = :username order by l.id")
+    List<Object[]> findWithLabourId(@Param("username") String username);
+
+    // LABOUR users with no Labour row pointing at them (link backfill)
+    @Query("select u from User u where upper(u.role) = 'LABOUR' "
+            + "and not exists (select l.id from Labour l where l.userId = u.id)")
+    List<User> findUnlinkedLabourUsers();
+
+    // [userId, tokenVersion] for users whose tokens were ever revoked
+    @Query("select u.id, u.tokenVersion from User u where u.tokenVersion > 0")
+    List<Object[]> findRevokedTokenVersions();
 }
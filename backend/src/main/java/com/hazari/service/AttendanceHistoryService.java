@@ -0,0 +1,176 @@
+package com.hazari.service;
+
+import com.hazari.dto.AttendanceHistoryDto;
+import com.hazari.dto.CursorPageDto;
+import com.hazari.repository.AttendanceArchiveRepository;
+import com.hazari.repository.AttendanceRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Attendance history with keyset (seek) pagination, newest first.
+ *
+ * The cursor is the key of the last row returned: its date for a single
+ * labour (dates are unique per labour), "date:labourId" for a contractor.
+ * Each page is one index range scan however deep the client has paged.
+ *
+ * Rows older than the tiering cutoff may live in attendance_archive. The
+ * archive is only queried when the requested range reaches past the cutoff;
+ * both tiers are then read with the same seek and merged by key.
+ */
+@Service
+public class AttendanceHistoryService {
+
+    private static final int DEFAULT_PAGE_SIZE = 30;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final LocalDate EARLIEST = LocalDate.of(1000, 1, 1);
+
+    // Newest first: date desc, then labourId desc (the keyset order)
+    private static final Comparator<AttendanceHistoryDto> NEWEST_FIRST =
+            Comparator.comparing(AttendanceHistoryDto::getDate)
+                    .thenComparing(AttendanceHistoryDto::getLabourId)
+                    .reversed();
+
+    private final AttendanceRepository attendanceRepository;
+    private final AttendanceArchiveRepository attendanceArchiveRepository;
+    private final AttendanceTieringService tiering;
+
+    public AttendanceHistoryService(AttendanceRepository attendanceRepository,
+                                    AttendanceArchiveRepository attendanceArchiveRepository,
+                                    AttendanceTieringService tiering) {
+        this.attendanceRepository = attendanceRepository;
+        this.attendanceArchiveRepository = attendanceArchiveRepository;
+        this.tiering = tiering;
+    }
+
+    // ----------------------------------------------------------------------
+    // ONE LABOUR
+    // ----------------------------------------------------------------------
+    public CursorPageDto<AttendanceHistoryDto> getLabourHistory(Long labourId, LocalDate from, LocalDate to,
+                                                                String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        LocalDate before = cursor != null ? parseDate(cursor) : upperBound(to);
+
+        LocalDate lower = from != null ? from : EARLIEST;
+        PageRequest page = PageRequest.of(0, pageSize);
+
+        List<AttendanceHistoryDto> items = attendanceRepository.findHistoryPage(labourId, lower, before, page);
+        if (reachesArchive(lower)) {
+            items = merge(items, attendanceArchiveRepository.findHistoryPage(labourId, lower, before, page), pageSize);
+        }
+
+        String next = null;
+        if (items.size() == pageSize) {
+            next = items.get(items.size() - 1).getDate().toString();
+        }
+        return new CursorPageDto<>(items, next);
+    }
+
+    // ----------------------------------------------------------------------
+    // ALL LABOURS OF A CONTRACTOR
+    // ----------------------------------------------------------------------
+    public CursorPageDto<AttendanceHistoryDto> getContractorHistory(Long contractorId, LocalDate from, LocalDate to,
+                                                                    String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        LocalDate date;
+        long labourId;
+        if (cursor != null) {
+            int sep = cursor.indexOf(':');
+            if (sep < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            date = parseDate(cursor.substring(0, sep));
+            try {
+                labourId = Long.parseLong(cursor.substring(sep + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        } else {
+            // Everything on or before "to": (to + 1, 0) is past the first row
+            date = upperBound(to);
+            labourId = 0L;
+        }
+
+        LocalDate lower = from != null ? from : EARLIEST;
+        PageRequest page = PageRequest.of(0, pageSize);
+
+        List<AttendanceHistoryDto> items = attendanceRepository.findContractorHistoryPage(
+                contractorId, lower, date, labourId, page);
+        if (reachesArchive(lower)) {
+            items = merge(items, attendanceArchiveRepository.findContractorHistoryPage(
+                    contractorId, lower, date, labourId, page), pageSize);
+        }
+
+        String next = null;
+        if (items.size() == pageSize) {
+            AttendanceHistoryDto last = items.get(items.size() - 1);
+            next = last.getDate() + ":" + last.getLabourId();
+        }
+        return new CursorPageDto<>(items, next);
+    }
+
+    // ----------------------------------------------------------------------
+    // TIER ROUTING
+    // ----------------------------------------------------------------------
+    // Only dates before the cutoff can have been archived
+    private boolean reachesArchive(LocalDate from) {
+        return from.isBefore(tiering.getCutoff());
+    }
+
+    /**
+     * Merges two newest-first pages into one. A row moved between the two
+     * queries can show up in both tiers; the hot copy is kept.
+     */
+    private static List<AttendanceHistoryDto> merge(List<AttendanceHistoryDto> hot,
+                                                    List<AttendanceHistoryDto> archive, int pageSize) {
+        if (archive.isEmpty()) {
+            return hot;
+        }
+        List<AttendanceHistoryDto> merged = new ArrayList<>(pageSize);
+        int h = 0;
+        int a = 0;
+        while (merged.size() < pageSize && (h < hot.size() || a < archive.size())) {
+            if (a >= archive.size()) {
+                merged.add(hot.get(h++));
+            } else if (h >= hot.size()) {
+                merged.add(archive.get(a++));
+            } else {
+                int cmp = NEWEST_FIRST.compare(hot.get(h), archive.get(a));
+                if (cmp == 0) {
+                    a++;
+                    merged.add(hot.get(h++));
+                } else if (cmp < 0) {
+                    merged.add(hot.get(h++));
+                } else {
+                    merged.add(archive.get(a++));
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static int pageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private static LocalDate upperBound(LocalDate to) {
+        return (to != null ? to : LocalDate.now()).plusDays(1);
+    }
+
+    private static LocalDate parseDate(String text) {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.hazari.service;
+
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.entity.AttendanceDeadLetter;
+import com.hazari.repository.AttendanceDeadLetterRepository;
+import com.hazari.repository.AttendanceJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind path for check-in / check-out.
+ *
+ * When attendance.ingest.write-behind is true, requests are acknowledged as soon
+ * as the event is in a bounded in-memory queue. A single writer thread drains the
+ * queue and writes to the attendance table in JDBC batches of up to batch-size,
+ * waiting at most linger-ms for a batch to fill. If the queue stays full for
+ * offer-timeout-ms the request is rejected with 503 so the client retries.
+ * Everything still queued is flushed when the application shuts down.
+ *
+ * Queued events were already acknowledged, so a failed write is never
+ * dropped: it is retried max-attempts times with exponential backoff, then
+ * parked in attendance_dead_letter and replayed from there every
+ * dead-letter-replay-ms with the offline-sync merge rules (earliest
+ * check-in, latest check-out win, so a late replay cannot undo a newer tap).
+ * While even the dead-letter insert fails the writer keeps retrying, the
+ * queue fills up and new requests get 503 rather than being lost.
+ *
+ * A check-out is only accepted if the labour has a check-in today, either
+ * queued here or already stored (LabourStatusCache); otherwise the request
+ * fails like the synchronous path does. One that still finds no row when
+ * written (e.g. its check-in went to another instance that has not written
+ * it yet) is parked as unmatched and replayed until the end of its day.
+ */
+@Service
+public class AttendanceIngestionQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceIngestionQueue.class);
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private static final String NO_CHECK_IN = "No check-in found for today";
+
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+    private final TodayBoardService todayBoard;
+    private final LabourStatusCache labourStatusCache;
+    private final PayrollRollupService payrollRollup;
+    private final ShiftRuleService shiftRules;
+    private final AttendanceDeadLetterRepository deadLetterRepository;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long lingerMs;
+    private final long offerTimeoutMs;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final BlockingQueue<AttendanceEvent> queue;
+
+    // labourId -> day of a check-in accepted but not written yet
+    private final Map<Long, LocalDate> queuedCheckIns = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public AttendanceIngestionQueue(AttendanceJdbcRepository attendanceJdbcRepository,
+                                    TodayBoardService todayBoard,
+                                    LabourStatusCache labourStatusCache,
+                                    PayrollRollupService payrollRollup,
+                                    ShiftRuleService shiftRules,
+                                    AttendanceDeadLetterRepository deadLetterRepository,
+                                    @Value("${attendance.ingest.write-behind:false}") boolean enabled,
+                                    @Value("${attendance.ingest.queue-capacity:50000}") int queueCapacity,
+                                    @Value("${attendance.ingest.batch-size:500}") int batchSize,
+                                    @Value("${attendance.ingest.linger-ms:50}") long lingerMs,
+                                    @Value("${attendance.ingest.offer-timeout-ms:200}") long offerTimeoutMs,
+                                    @Value("${attendance.ingest.max-attempts:5}") int maxAttempts,
+                                    @Value("${attendance.ingest.retry-backoff-ms:200}") long retryBackoffMs) {
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+        this.todayBoard = todayBoard;
+        this.labourStatusCache = labourStatusCache;
+        this.payrollRollup = payrollRollup;
+        this.shiftRules = shiftRules;
+        this.deadLetterRepository = deadLetterRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.retryBackoffMs = retryBackoffMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "attendance-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    // ----------------------------------------------------------------------
+    // ENQUEUE (called on the request thread)
+    // ----------------------------------------------------------------------
+    public void submit(AttendanceEvent event) {
+        if (!running) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Attendance queue is not accepting events");
+        }
+        if (event.isCheckIn()) {
+            queuedCheckIns.put(event.getLabourId(), event.getDate());
+        } else if (!hasCheckIn(event)) {
+            // Same answer as the synchronous path, before anything is acknowledged
+            throw new RuntimeException(NO_CHECK_IN);
+        }
+        boolean accepted;
+        try {
+            accepted = queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Attendance queue is full, please retry");
+        }
+    }
+
+    private boolean hasCheckIn(AttendanceEvent event) {
+        return event.getDate().equals(queuedCheckIns.get(event.getLabourId()))
+                || Boolean.TRUE.equals(labourStatusCache.getTodayStatus(event.getLabourId()).get("todayCheckedIn"));
+    }
+
+    // ----------------------------------------------------------------------
+    // WRITER LOOP
+    // ----------------------------------------------------------------------
+    private void runWriter() {
+        List<AttendanceEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AttendanceEvent first = queue.poll(lingerMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Wait up to linger-ms for the batch to fill
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    AttendanceEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Never interrupted on purpose; keep draining until the queue is empty
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the batch in order. Consecutive events of the same type go out
+     * as one JDBC batch, so a check-out never lands before its check-in.
+     */
+    private void flush(List<AttendanceEvent> batch) {
+        try {
+            shiftRules.apply(batch);
+        } catch (Exception e) {
+            // Events without a rule are written with the default shift
+            log.error("Failed to resolve shift rules for {} attendance events", batch.size(), e);
+        }
+        int start = 0;
+        while (start < batch.size()) {
+            boolean checkIn = batch.get(start).isCheckIn();
+            int end = start + 1;
+            while (end < batch.size() && batch.get(end).isCheckIn() == checkIn) {
+                end++;
+            }
+            List<AttendanceEvent> run = batch.subList(start, end);
+            int[] updated = writeWithRetry(run, checkIn);
+            if (updated != null) {
+                if (checkIn) {
+                    // Stored now, so a check-out finds it through the status cache
+                    run.forEach(ev -> queuedCheckIns.remove(ev.getLabourId(), ev.getDate()));
+                } else {
+                    parkUnmatched(run, updated);
+                }
+                publish(run, checkIn, updated);
+            }
+            start = end;
+        }
+    }
+
+    /** Rows matched per event, or null if the run was parked in the dead-letter table. */
+    private int[] writeWithRetry(List<AttendanceEvent> run, boolean checkIn) {
+        long backoffMs = retryBackoffMs;
+        Exception last = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                if (checkIn) {
+                    attendanceJdbcRepository.batchCheckIn(run);
+                    int[] all = new int[run.size()];
+                    Arrays.fill(all, 1);
+                    return all;
+                }
+                return attendanceJdbcRepository.batchCheckOut(run);
+            } catch (Exception e) {
+                last = e;
+                log.warn("Failed to write {} attendance events (attempt {}/{}): {}",
+                        run.size(), attempt, maxAttempts, e.getMessage());
+                if (attempt < maxAttempts) {
+                    backoffMs = pause(backoffMs);
+                }
+            }
+        }
+        park(run, last);
+        return null;
+    }
+
+    private void park(List<AttendanceEvent> run, Exception cause) {
+        List<AttendanceDeadLetter> rows = new ArrayList<>(run.size());
+        for (AttendanceEvent event : run) {
+            rows.add(AttendanceDeadLetter.of(event, String.valueOf(cause)));
+        }
+        save(rows, run, cause);
+    }
+
+    // Check-outs that matched no row: the check-in may still be on its way
+    private void parkUnmatched(List<AttendanceEvent> run, int[] updated) {
+        List<AttendanceDeadLetter> rows = new ArrayList<>();
+        List<AttendanceEvent> unmatched = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                AttendanceDeadLetter row = AttendanceDeadLetter.of(run.get(i), NO_CHECK_IN);
+                row.setUnmatched(true);
+                rows.add(row);
+                unmatched.add(run.get(i));
+            }
+        }
+        if (!rows.isEmpty()) {
+            save(rows, unmatched, null);
+        }
+    }
+
+    private void save(List<AttendanceDeadLetter> rows, List<AttendanceEvent> run, Exception cause) {
+        long backoffMs = retryBackoffMs;
+        while (true) {
+            try {
+                deadLetterRepository.saveAll(rows);
+                if (cause != null) {
+                    log.error("Parked {} attendance events in attendance_dead_letter", run.size(), cause);
+                } else {
+                    log.warn("Parked {} check-outs with no check-in yet in attendance_dead_letter", run.size());
+                }
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    // Shutting down with the database unreachable: leave a trail to re-enter by hand
+                    run.forEach(ev -> log.error("Unwritten attendance event: labour={} action={} time={}",
+                            ev.getLabourId(), ev.getAction(), ev.getTime()));
+                    return;
+                }
+                log.error("Failed to park {} attendance events, retrying", run.size(), e);
+                backoffMs = pause(backoffMs);
+            }
+        }
+    }
+
+    private void publish(List<AttendanceEvent> run, boolean checkIn, int[] updated) {
+        try {
+            if (checkIn) {
+                run.forEach(todayBoard::onCheckIn);
+                payrollRollup.onAttendance(run);
+                return;
+            }
+            List<AttendanceEvent> checkedOut = new ArrayList<>(run.size());
+            for (int i = 0; i < updated.length; i++) {
+                // Unmatched ones were parked by the caller
+                if (updated[i] != 0) {
+                    todayBoard.onCheckOut(run.get(i));
+                    checkedOut.add(run.get(i));
+                }
+            }
+            payrollRollup.onAttendance(checkedOut);
+        } catch (Exception e) {
+            // The rows are written; only the in-memory views missed the update
+            log.error("Failed to publish {} written attendance events", run.size(), e);
+        }
+    }
+
+    private static long pause(long backoffMs) {
+        try {
+            Thread.sleep(backoffMs);
+        } catch (InterruptedException e) {
+            // Never interrupted on purpose
+        }
+        return Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+    }
+
+    // ----------------------------------------------------------------------
+    // DEAD-LETTER REPLAY (merge rules, oldest first)
+    // ----------------------------------------------------------------------
+    @Scheduled(fixedDelayString = "${attendance.ingest.dead-letter-replay-ms:300000}")
+    public void replayDeadLetters() {
+        LocalDate today = LocalDate.now();
+        queuedCheckIns.values().removeIf(date -> date.isBefore(today));
+        List<AttendanceDeadLetter> rows =
+                deadLetterRepository.findReplayable(today, PageRequest.of(0, batchSize));
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<AttendanceEvent> checkIns = new ArrayList<>();
+        List<AttendanceEvent> checkOuts = new ArrayList<>();
+        List<AttendanceDeadLetter> checkOutRows = new ArrayList<>();
+        for (AttendanceDeadLetter row : rows) {
+            AttendanceEvent event = row.toEvent();
+            if (event.isCheckIn()) {
+                checkIns.add(event);
+            } else {
+                checkOuts.add(event);
+                checkOutRows.add(row);
+            }
+        }
+        try {
+            shiftRules.apply(checkIns);
+            shiftRules.apply(checkOuts);
+            if (!checkIns.isEmpty()) {
+                attendanceJdbcRepository.batchMergeCheckIn(checkIns);
+            }
+            int[] matched = checkOuts.isEmpty() ? new int[0] : attendanceJdbcRepository.batchMergeCheckOut(checkOuts);
+            List<AttendanceDeadLetter> done = new ArrayList<>(rows);
+            List<AttendanceDeadLetter> unmatched = new ArrayList<>();
+            for (int i = 0; i < matched.length; i++) {
+                if (matched[i] == 0) {
+                    AttendanceDeadLetter row = checkOutRows.get(i);
+                    row.setUnmatched(true);
+                    row.setReplayAttempts(row.getReplayAttempts() + 1);
+                    row.setLastError(NO_CHECK_IN);
+                    unmatched.add(row);
+                    done.remove(row);
+                }
+            }
+            deadLetterRepository.saveAll(unmatched);
+            deadLetterRepository.deleteAllInBatch(done);
+
+            checkIns.forEach(todayBoard::onSyncedCheckIn);
+            List<AttendanceEvent> written = new ArrayList<>(checkIns);
+            for (int i = 0; i < matched.length; i++) {
+                if (matched[i] == 0) {
+                    if (checkOuts.get(i).getDate().isBefore(today)) {
+                        log.error("Check-out for labour {} on {} never matched a check-in, left in attendance_dead_letter",
+                                checkOuts.get(i).getLabourId(), checkOuts.get(i).getDate());
+                    }
+                } else {
+                    todayBoard.onSyncedCheckOut(checkOuts.get(i));
+                    written.add(checkOuts.get(i));
+                }
+            }
+            payrollRollup.onAttendance(written);
+            log.info("Replayed {} dead-lettered attendance events, {} check-outs still unmatched",
+                    done.size(), unmatched.size());
+        } catch (Exception e) {
+            log.warn("Dead-letter replay of {} attendance events failed, retrying later", rows.size(), e);
+            try {
+                for (AttendanceDeadLetter row : rows) {
+                    row.setReplayAttempts(row.getReplayAttempts() + 1);
+                    row.setLastError(String.valueOf(e));
+                }
+                deadLetterRepository.saveAll(rows);
+            } catch (Exception ignored) {
+                // Database still down; the rows are unchanged and replayed next time
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // SHUTDOWN: stop accepting, flush what is queued
+    // ----------------------------------------------------------------------
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (!queue.isEmpty()) {
+            log.error("{} attendance events were not written before shutdown", queue.size());
+            for (AttendanceEvent ev : queue) {
+                log.error("Unwritten attendance event: labour={} action={} time={}",
+                        ev.getLabourId(), ev.getAction(), ev.getTime());
+            }
+        }
+    }
+}
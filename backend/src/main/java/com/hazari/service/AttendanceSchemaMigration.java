@@ -0,0 +1,45 @@
+package com.hazari.service;
+
+import com.hazari.repository.AttendanceJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Makes sure attendance has its (labour_id, date) unique key before the
+ * application takes traffic. Without it the check-in upsert silently inserts
+ * a second row for the day, so a key that cannot be added stops startup.
+ *
+ * Databases from before the key existed hold duplicate rows; they are merged
+ * once, here (see AttendanceJdbcRepository.ensureLabourDateKey). Takes the
+ * EntityManagerFactory so it runs after Hibernate's schema update.
+ */
+@Service
+public class AttendanceSchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceSchemaMigration.class);
+
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+
+    public AttendanceSchemaMigration(AttendanceJdbcRepository attendanceJdbcRepository,
+                                     EntityManagerFactory entityManagerFactory) {
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+    }
+
+    @PostConstruct
+    public void ensureUniqueKey() {
+        int merged;
+        try {
+            merged = attendanceJdbcRepository.ensureLabourDateKey();
+        } catch (Exception e) {
+            throw new IllegalStateException(
+                    "attendance is missing uk_attendance_labour_date and it could not be added; "
+                            + "check-ins would create duplicate rows", e);
+        }
+        if (merged >= 0) {
+            log.warn("Added uk_attendance_labour_date to attendance after merging {} duplicate rows", merged);
+        }
+    }
+}
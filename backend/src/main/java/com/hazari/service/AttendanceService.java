@@ -1,215 +1,256 @@
 package com.hazari.service;
 
+import com.hazari.dto.AttendanceEvent;
 import com.hazari.dto.AttendanceInDto;
 import com.hazari.dto.AttendanceOutDto;
+import com.hazari.dto.BulkAttendanceDto;
+import com.hazari.dto.BulkAttendanceResultDto;
+import com.hazari.dto.LabourDaysWorkedDto;
 import com.hazari.dto.TodayAttendanceDto;
 import com.hazari.entity.Attendance;
-import com.hazari.entity.Labour;
+import com.hazari.repository.AttendanceArchiveRepository;
+import com.hazari.repository.AttendanceJdbcRepository;
+import com.hazari.repository.AttendanceMonthSummaryRepository;
 import com.hazari.repository.AttendanceRepository;
 import com.hazari.repository.LabourRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class AttendanceService {
 
+    // Open ends of a days-worked range (MySQL DATE limits)
+    private static final LocalDate EARLIEST = LocalDate.of(1000, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
     private final AttendanceRepository attendanceRepository;
     private final LabourRepository labourRepository;
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+    private final TodayBoardService todayBoard;
+    private final AttendanceStreamService attendanceStream;
+    private final AttendanceArchiveRepository attendanceArchiveRepository;
+    private final AttendanceMonthSummaryRepository monthSummaryRepository;
+    private final AttendanceTieringService tiering;
+    private final PayrollRollupService payrollRollup;
+    private final ShiftRuleService shiftRules;
+    private final LabourStatusCache labourStatusCache;
 
     public AttendanceService(AttendanceRepository attendanceRepository,
-                             LabourRepository labourRepository) {
+                             LabourRepository labourRepository,
+                             AttendanceJdbcRepository attendanceJdbcRepository,
+                             TodayBoardService todayBoard,
+                             AttendanceStreamService attendanceStream,
+                             AttendanceArchiveRepository attendanceArchiveRepository,
+                             AttendanceMonthSummaryRepository monthSummaryRepository,
+                             AttendanceTieringService tiering,
+                             PayrollRollupService payrollRollup,
+                             ShiftRuleService shiftRules,
+                             LabourStatusCache labourStatusCache) {
         this.attendanceRepository = attendanceRepository;
         this.labourRepository = labourRepository;
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+        this.todayBoard = todayBoard;
+        this.attendanceStream = attendanceStream;
+        this.attendanceArchiveRepository = attendanceArchiveRepository;
+        this.monthSummaryRepository = monthSummaryRepository;
+        this.tiering = tiering;
+        this.payrollRollup = payrollRollup;
+        this.shiftRules = shiftRules;
+        this.labourStatusCache = labourStatusCache;
     }
 
     // ====================================
     // ✅ CHECK-IN (with photo + location)
+    // Single upsert on (labour_id, date): one round trip, no duplicate rows
     // ====================================
     public Attendance checkIn(AttendanceInDto dto) {
 
-        LocalDate today = LocalDate.now();
-
-        // Check if already exists for today
-        Attendance attendance = attendanceRepository
-                .findByLabourIdAndDate(dto.getLabourId(), today)
-                .orElseGet(Attendance::new);
+        AttendanceEvent event = AttendanceEvent.checkIn(dto, LocalDateTime.now());
+        shiftRules.apply(event);
+        long id = attendanceJdbcRepository.upsertCheckIn(event);
+        todayBoard.onCheckIn(event);
+        payrollRollup.onAttendance(event);
 
-        attendance.setLabourId(dto.getLabourId());
-        attendance.setDate(today);
-        attendance.setTimeIn(LocalDateTime.now());
+        Attendance attendance = new Attendance();
+        attendance.setId(id);
+        attendance.setLabourId(event.getLabourId());
+        attendance.setDate(event.getDate());
+        attendance.setTimeIn(event.getTime());
 
         // From Flutter camera + GPS
-        attendance.setInPhotoPath(dto.getPhotoPath());
-        attendance.setInLatitude(dto.getLatitude());
-        attendance.setInLongitude(dto.getLongitude());
+        attendance.setInPhotoPath(event.getPhotoPath());
+        attendance.setInLatitude(event.getLatitude());
+        attendance.setInLongitude(event.getLongitude());
 
-        return attendanceRepository.save(attendance);
+        return attendance;
     }
 
     // ====================================
     // ✅ CHECK-OUT (with photo + location)
+    // Single conditional UPDATE; 0 rows means no check-in today
     // ====================================
     public Attendance checkOut(Long labourId, AttendanceOutDto dto) {
 
-        LocalDate today = LocalDate.now();
-
-        Attendance attendance = attendanceRepository
-                .findByLabourIdAndDate(labourId, today)
-                .orElseThrow(() -> new RuntimeException("No check-in found for today"));
+        AttendanceEvent event = AttendanceEvent.checkOut(labourId, dto, LocalDateTime.now());
+        shiftRules.apply(event);
+        if (attendanceJdbcRepository.checkOut(event) == 0) {
+            throw new RuntimeException("No check-in found for today");
+        }
+        todayBoard.onCheckOut(event);
+        payrollRollup.onAttendance(event);
 
-        attendance.setTimeOut(LocalDateTime.now());
+        Attendance attendance = new Attendance();
+        attendance.setLabourId(labourId);
+        attendance.setDate(event.getDate());
+        attendance.setTimeOut(event.getTime());
 
         // From Flutter camera + GPS
-        attendance.setOutPhotoPath(dto.getPhotoPath());
-        attendance.setOutLatitude(dto.getLatitude());
-        attendance.setOutLongitude(dto.getLongitude());
+        attendance.setOutPhotoPath(event.getPhotoPath());
+        attendance.setOutLatitude(event.getLatitude());
+        attendance.setOutLongitude(event.getLongitude());
 
-        return attendanceRepository.save(attendance);
+        return attendance;
     }
 
-    // ----------------------------------------------------------------------
-    // TODAY'S ATTENDANCE - ALL LABOURS
-    // ----------------------------------------------------------------------
-    public List<TodayAttendanceDto> getTodayAttendance() {
-        LocalDate today = LocalDate.now();
-        List<Attendance> records = attendanceRepository.findByDate(today);
-
-        List<TodayAttendanceDto> result = new ArrayList<>();
-        Map<Long, String> labourNameCache = new HashMap<>();
-
-        for (Attendance att : records) {
-            Long labourId = att.getLabourId();
-            if (labourId == null) {
-                continue;
-            }
-
-            // Get labour name (cache to avoid many DB hits)
-            String labourName = labourNameCache.get(labourId);
-            if (labourName == null) {
-                Optional<Labour> labourOpt = labourRepository.findById(labourId);
-                labourName = labourOpt.map(Labour::getName)
-                        .orElse("Labour #" + labourId);
-                labourNameCache.put(labourId, labourName);
-            }
+    // ====================================
+    // ✅ TODAY'S STATUS for one labour (served from LabourStatusCache)
+    // ====================================
+    public Map<String, Object> getTodayStatus(Long labourId) {
+        return labourStatusCache.getTodayStatus(labourId);
+    }
 
-            // Status: default to PRESENT unless explicitly set
-            String status = "PRESENT";
-            if (att.getStatus() != null && !att.getStatus().isEmpty()) {
-                status = att.getStatus();
-            }
+    // ====================================
+    // ✅ BULK CHECK-IN (supervisor marks a whole gang)
+    // One id lookup + one batched upsert in a single transaction
+    // ====================================
+    public List<BulkAttendanceResultDto> bulkCheckIn(BulkAttendanceDto dto) {
+        LocalDateTime now = LocalDateTime.now();
+        List<BulkAttendanceResultDto> results = new ArrayList<>();
+        List<AttendanceEvent> events = new ArrayList<>();
+
+        for (Long labourId : knownLabours(dto, results)) {
+            events.add(new AttendanceEvent(labourId, AttendanceEvent.IN, now,
+                    dto.getPhotoPath(), dto.getLatitude(), dto.getLongitude()));
+        }
+        if (!events.isEmpty()) {
+            shiftRules.apply(events);
+            attendanceJdbcRepository.batchCheckIn(events);
+            payrollRollup.onAttendance(events);
+        }
+        for (AttendanceEvent event : events) {
+            todayBoard.onCheckIn(event);
+            results.add(new BulkAttendanceResultDto(event.getLabourId(), BulkAttendanceResultDto.OK));
+        }
+        return results;
+    }
 
-            // Time strings — use timeIn/timeOut getters (matching Attendance entity)
-            String checkIn = null;
-            LocalDateTime timeIn = att.getTimeIn();
-            if (timeIn != null) {
-                checkIn = timeIn.toString();
+    // ====================================
+    // ✅ BULK CHECK-OUT
+    // ====================================
+    public List<BulkAttendanceResultDto> bulkCheckOut(BulkAttendanceDto dto) {
+        LocalDateTime now = LocalDateTime.now();
+        List<BulkAttendanceResultDto> results = new ArrayList<>();
+        List<AttendanceEvent> events = new ArrayList<>();
+
+        for (Long labourId : knownLabours(dto, results)) {
+            events.add(new AttendanceEvent(labourId, AttendanceEvent.OUT, now,
+                    dto.getPhotoPath(), dto.getLatitude(), dto.getLongitude()));
+        }
+        shiftRules.apply(events);
+        int[] updated = events.isEmpty() ? new int[0] : attendanceJdbcRepository.batchCheckOut(events);
+        List<AttendanceEvent> checkedOut = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            AttendanceEvent event = events.get(i);
+            if (updated[i] == 0) {
+                results.add(new BulkAttendanceResultDto(event.getLabourId(), BulkAttendanceResultDto.NO_CHECKIN));
+            } else {
+                todayBoard.onCheckOut(event);
+                checkedOut.add(event);
+                results.add(new BulkAttendanceResultDto(event.getLabourId(), BulkAttendanceResultDto.OK));
             }
+        }
+        payrollRollup.onAttendance(checkedOut);
+        return results;
+    }
 
-            String checkOut = null;
-            LocalDateTime timeOut = att.getTimeOut();
-            if (timeOut != null) {
-                checkOut = timeOut.toString();
+    /** De-duplicated ids that exist; unknown ones are reported in results. */
+    private List<Long> knownLabours(BulkAttendanceDto dto, List<BulkAttendanceResultDto> results) {
+        if (dto.getLabourIds() == null || dto.getLabourIds().isEmpty()) {
+            throw new IllegalArgumentException("labourIds is required");
+        }
+        Set<Long> requested = new LinkedHashSet<>(dto.getLabourIds());
+        requested.remove(null);
+        Set<Long> existing = new HashSet<>(labourRepository.findExistingIds(requested));
+
+        List<Long> known = new ArrayList<>();
+        for (Long labourId : requested) {
+            if (existing.contains(labourId)) {
+                known.add(labourId);
+            } else {
+                results.add(new BulkAttendanceResultDto(labourId, BulkAttendanceResultDto.UNKNOWN_LABOUR));
             }
-
-            TodayAttendanceDto dto = new TodayAttendanceDto(
-                    labourId,
-                    labourName,
-                    status,
-                    checkIn,
-                    checkOut
-            );
-
-            result.add(dto);
         }
+        return known;
+    }
 
-        // Sort by labour name for nicer UI
-        result.sort(Comparator.comparing(TodayAttendanceDto::getLabourName));
-
-        return result;
+    // ----------------------------------------------------------------------
+    // TODAY'S ATTENDANCE - ALL LABOURS (served from the in-memory board)
+    // ----------------------------------------------------------------------
+    public List<TodayAttendanceDto> getTodayAttendance() {
+        return todayBoard.getAll();
     }
 
     // ----------------------------------------------------------------------
     // TODAY'S ATTENDANCE - ONLY ONE CONTRACTOR'S LABOURS
     // ----------------------------------------------------------------------
     public List<TodayAttendanceDto> getTodayAttendanceForContractor(Long contractorId) {
-        LocalDate today = LocalDate.now();
+        return todayBoard.getForContractor(contractorId);
+    }
 
-        // 1) Get all labours for this contractor
-        List<Labour> labours = labourRepository.findByContractorId(contractorId);
-        if (labours == null || labours.isEmpty()) {
-            return Collections.emptyList();
-        }
+    // ----------------------------------------------------------------------
+    // LIVE FEED - snapshot, then check-in / check-out deltas (SSE)
+    // ----------------------------------------------------------------------
+    public SseEmitter streamTodayAttendanceForContractor(Long contractorId) {
+        return attendanceStream.subscribe(contractorId,
+                () -> todayBoard.getForContractor(contractorId));
+    }
 
-        List<Long> labourIds = new ArrayList<>();
-        for (Labour l : labours) {
-            if (l.getId() != null) {
-                labourIds.add(l.getId());
+    // ----------------------------------------------------------------------
+    // DAYS WORKED - all labours of a contractor, one GROUP BY query
+    // from/to are optional (e.g. the current pay period); null = open-ended
+    // ----------------------------------------------------------------------
+    public Map<Long, Long> getDaysWorkedByContractor(Long contractorId, LocalDate from, LocalDate to) {
+        LocalDate lower = from != null ? from : EARLIEST;
+        LocalDate upper = to != null ? to : LATEST;
+        Map<Long, Long> result = new HashMap<>();
+        addDaysWorked(result, attendanceRepository.countDaysWorkedByContractor(contractorId, lower, upper));
+
+        LocalDate cutoff = tiering.getCutoff();
+        if (lower.isBefore(cutoff)) {
+            if (from == null && !upper.isBefore(cutoff)) {
+                // Whole archive: one row per labour-month instead of one per day
+                addDaysWorked(result, monthSummaryRepository.sumDaysWorkedByContractor(contractorId));
+            } else {
+                addDaysWorked(result, attendanceArchiveRepository.countDaysWorkedByContractor(
+                        contractorId, lower, upper));
             }
         }
+        return result;
+    }
 
-        if (labourIds.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // 2) Attendance only for these labours today
-        List<Attendance> records = attendanceRepository.findByDateAndLabourIdIn(today, labourIds);
-
-        List<TodayAttendanceDto> result = new ArrayList<>();
-        Map<Long, String> labourNameCache = new HashMap<>();
-
-        for (Attendance att : records) {
-            Long labourId = att.getLabourId();
-            if (labourId == null) {
-                continue;
-            }
-
-            // Labour name (cache)
-            String labourName = labourNameCache.get(labourId);
-            if (labourName == null) {
-                Optional<Labour> labourOpt = labourRepository.findById(labourId);
-                labourName = labourOpt.map(Labour::getName)
-                        .orElse("Labour #" + labourId);
-                labourNameCache.put(labourId, labourName);
-            }
-
-            String status = "PRESENT";
-            if (att.getStatus() != null && !att.getStatus().isEmpty()) {
-                status = att.getStatus();
-            }
-
-            String checkIn = null;
-            LocalDateTime timeIn = att.getTimeIn();
-            if (timeIn != null) {
-                checkIn = timeIn.toString();
-            }
-
-            String checkOut = null;
-            LocalDateTime timeOut = att.getTimeOut();
-            if (timeOut != null) {
-                checkOut = timeOut.toString();
-            }
-
-            TodayAttendanceDto dto = new TodayAttendanceDto(
-                    labourId,
-                    labourName,
-                    status,
-                    checkIn,
-                    checkOut
-            );
-
-            result.add(dto);
+    private static void addDaysWorked(Map<Long, Long> result, List<LabourDaysWorkedDto> rows) {
+        for (LabourDaysWorkedDto row : rows) {
+            result.merge(row.getLabourId(), row.getDaysWorked(), Long::sum);
         }
-
-        result.sort(Comparator.comparing(TodayAttendanceDto::getLabourName));
-        return result;
     }
 }
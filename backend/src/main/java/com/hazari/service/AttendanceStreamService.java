@@ -0,0 +1,254 @@
+package com.hazari.service;
+
+import com.hazari.dto.TodayAttendanceDto;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Live attendance feed for the contractor dashboard (Server-Sent Events).
+ *
+ * A new connection gets a "snapshot" event with the full board, then one
+ * "check-in" / "check-out" event per change carrying the updated row. Rows are
+ * complete, so applying a delta twice is harmless. Deltas published while the
+ * snapshot is being read wait in the buffer until the snapshot is at its
+ * head; if buffer-size of them arrive meanwhile there is no room left for it,
+ * and the connection is closed rather than sending deltas without a baseline.
+ *
+ * Idle connections hold no thread: each one is a small bounded buffer that a
+ * shared dispatcher pool drains when something is queued. A client that falls
+ * buffer-size events behind is disconnected and re-syncs from a fresh snapshot
+ * when it reconnects. A comment line is sent every heartbeat-ms to keep
+ * proxies from closing quiet connections.
+ *
+ * Publishing never waits on a client: it only offers to the buffer, and a
+ * subscriber being dropped is closed by a dispatcher thread, not the caller.
+ * A send still blocks the dispatcher thread that makes it, so the pool grows
+ * on demand up to dispatch-threads (idle threads exit), and a send that has
+ * not finished after send-timeout-ms gets its subscriber dropped and its
+ * thread interrupted; the blocked write itself ends at the latest when the
+ * container's write timeout fires.
+ */
+@Service
+public class AttendanceStreamService {
+
+    public static final String SNAPSHOT = "snapshot";
+    public static final String CHECK_IN = "check-in";
+    public static final String CHECK_OUT = "check-out";
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final long timeoutMs;
+    private final int bufferSize;
+    private final long sendTimeoutNanos;
+    private final ThreadPoolExecutor dispatcher;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    public AttendanceStreamService(@Value("${attendance.stream.timeout-ms:1800000}") long timeoutMs,
+                                   @Value("${attendance.stream.buffer-size:256}") int bufferSize,
+                                   @Value("${attendance.stream.dispatch-threads:16}") int dispatchThreads,
+                                   @Value("${attendance.stream.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.timeoutMs = timeoutMs;
+        this.bufferSize = bufferSize;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        // Core threads start per task up to the limit and time out when idle
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "attendance-stream");
+            t.setDaemon(true);
+            return t;
+        });
+        this.dispatcher.allowCoreThreadTimeOut(true);
+    }
+
+    // ----------------------------------------------------------------------
+    // SUBSCRIBE: register first, then queue the snapshot ahead of any delta
+    // ----------------------------------------------------------------------
+    public SseEmitter subscribe(Long contractorId, Supplier<List<TodayAttendanceDto>> snapshot) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(contractorId, emitter, bufferSize);
+
+        // Added inside compute so a concurrent remove cannot drop the set under us
+        subscribers.compute(contractorId, (k, set) -> {
+            Set<Subscriber> s = set != null ? set : ConcurrentHashMap.<Subscriber>newKeySet();
+            s.add(subscriber);
+            return s;
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        if (!subscriber.buffer.offerFirst(SseEmitter.event().name(SNAPSHOT).data(snapshot.get()))) {
+            // Deltas filled the buffer while the snapshot was read: never send them without
+            // a baseline, drop the connection and let the client reconnect
+            close(subscriber);
+        }
+        // Nothing is sent before this point, so deltas queued meanwhile go out after the snapshot
+        subscriber.ready = true;
+        schedule(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        int count = 0;
+        for (Set<Subscriber> set : subscribers.values()) {
+            count += set.size();
+        }
+        return count;
+    }
+
+    // ----------------------------------------------------------------------
+    // PUBLISH (called by the today board after a row changes)
+    // ----------------------------------------------------------------------
+    public void publish(Long contractorId, String type, TodayAttendanceDto row) {
+        if (contractorId == null) {
+            return;
+        }
+        Set<Subscriber> set = subscribers.get(contractorId);
+        if (set == null || set.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : set) {
+            enqueue(subscriber, SseEmitter.event().name(type).data(row));
+        }
+    }
+
+    @Scheduled(fixedRateString = "${attendance.stream.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                // Only idle connections need a heartbeat
+                if (subscriber.buffer.isEmpty()) {
+                    enqueue(subscriber, HEARTBEAT);
+                }
+            }
+        }
+    }
+
+    // Runs every send-timeout-ms, so a stuck send is cut after one to two timeouts
+    @Scheduled(fixedDelayString = "${attendance.stream.send-timeout-ms:10000}")
+    public void expireStalledSends() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                long started = subscriber.sendStartedAt;
+                Thread sender = subscriber.sender;
+                if (started != 0 && now - started > sendTimeoutNanos) {
+                    close(subscriber);
+                    // Only if that thread has not moved on to another client meanwhile
+                    if (sender != null && subscriber.sender == sender) {
+                        sender.interrupt();
+                    }
+                }
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // INTERNALS
+    // ----------------------------------------------------------------------
+    private void enqueue(Subscriber subscriber, Object item) {
+        if (!subscriber.buffer.offerLast(item)) {
+            // Too far behind: drop it, the client reconnects and gets a snapshot.
+            // The emitter is completed by the dispatcher, never on the publisher's thread.
+            close(subscriber);
+        }
+        schedule(subscriber);
+    }
+
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        remove(subscriber);
+        subscriber.buffer.clear();
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.ready && subscriber.draining.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Object item;
+            while (!subscriber.closed && (item = subscriber.buffer.pollFirst()) != null) {
+                subscriber.sender = Thread.currentThread();
+                subscriber.sendStartedAt = System.nanoTime();
+                try {
+                    if (item == HEARTBEAT) {
+                        subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        subscriber.emitter.send((SseEmitter.SseEventBuilder) item);
+                    }
+                } finally {
+                    subscriber.sendStartedAt = 0;
+                    subscriber.sender = null;
+                }
+            }
+            if (subscriber.closed) {
+                subscriber.emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away, send was cut off, or emitter already completed
+            close(subscriber);
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // Something may have arrived between the last poll and releasing the flag
+        if (!subscriber.closed && !subscriber.buffer.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    // Drops the contractor's set with its last subscriber
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.contractorId, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                subscriber.emitter.complete();
+            }
+        }
+        subscribers.clear();
+    }
+
+    private static final class Subscriber {
+        final Long contractorId;
+        final SseEmitter emitter;
+        final BlockingDeque<Object> buffer;
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+        volatile boolean ready; // snapshot queued, may be drained
+        volatile long sendStartedAt; // System.nanoTime() of the send in progress, 0 when idle
+        volatile Thread sender;
+
+        Subscriber(Long contractorId, SseEmitter emitter, int bufferSize) {
+            this.contractorId = contractorId;
+            this.emitter = emitter;
+            this.buffer = new LinkedBlockingDeque<>(bufferSize);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.hazari.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.dto.AttendanceSyncAckDto;
+import com.hazari.dto.AttendanceSyncRequest;
+import com.hazari.repository.AttendanceJdbcRepository;
+import com.hazari.repository.LabourRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Merges check-in / check-out events recorded offline by a device.
+ *
+ * Events are processed oldest first in chunks of chunk-size. For each chunk:
+ * drop ids already seen (in-memory index per day and labour, then one IN query
+ * on attendance_sync_event), check labour ids with one query, merge the rest
+ * with batched upserts (earliest check-in and latest check-out win), and record
+ * the accepted ids. The merge statements are idempotent, so a replay that slips
+ * past dedup cannot corrupt a row.
+ *
+ * One acknowledgement per event is written as a JSON line as soon as its chunk
+ * is done.
+ *
+ * Events dated before the tiering cutoff are acknowledged TOO_OLD and not
+ * merged: that range has been (or is being) moved to attendance_archive, and
+ * a second row for the same labour and day would block the archive job. With
+ * nothing archived the cutoff is LocalDate.MIN and every date merges. Events stamped in
+ * the future (beyond max-clock-skew-ms) or whose date is not the day of their
+ * time are INVALID.
+ */
+@Service
+public class AttendanceSyncService {
+
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+    private final LabourRepository labourRepository;
+    private final TodayBoardService todayBoard;
+    private final PayrollRollupService payrollRollup;
+    private final ShiftRuleService shiftRules;
+    private final AttendanceTieringService tiering;
+    private final ObjectMapper objectMapper;
+
+    private final int chunkSize;
+    private final int seenDays;
+    private final long maxClockSkewMs;
+
+    // date -> labourId -> event ids already merged
+    private final Map<LocalDate, Map<Long, Set<String>>> seen = new ConcurrentHashMap<>();
+
+    public AttendanceSyncService(AttendanceJdbcRepository attendanceJdbcRepository,
+                                 LabourRepository labourRepository,
+                                 TodayBoardService todayBoard,
+                                 PayrollRollupService payrollRollup,
+                                 ShiftRuleService shiftRules,
+                                 AttendanceTieringService tiering,
+                                 ObjectMapper objectMapper,
+                                 @Value("${attendance.sync.chunk-size:500}") int chunkSize,
+                                 @Value("${attendance.sync.seen-days:7}") int seenDays,
+                                 @Value("${attendance.sync.max-clock-skew-ms:300000}") long maxClockSkewMs) {
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+        this.labourRepository = labourRepository;
+        this.todayBoard = todayBoard;
+        this.payrollRollup = payrollRollup;
+        this.shiftRules = shiftRules;
+        this.tiering = tiering;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.seenDays = seenDays;
+        this.maxClockSkewMs = maxClockSkewMs;
+    }
+
+    public void sync(AttendanceSyncRequest request, OutputStream out) throws IOException {
+        List<AttendanceEvent> events = new ArrayList<>();
+        List<AttendanceSyncAckDto> rejected = new ArrayList<>();
+        LocalDateTime latest = LocalDateTime.now().plusNanos(maxClockSkewMs * 1_000_000);
+        LocalDate cutoff = tiering.getCutoff();
+        if (request.getEvents() != null) {
+            for (AttendanceEvent event : request.getEvents()) {
+                if (!isValid(event, latest)) {
+                    rejected.add(new AttendanceSyncAckDto(event != null ? event.getEventId() : null,
+                            AttendanceSyncAckDto.INVALID));
+                } else if (event.getTime().toLocalDate().isBefore(cutoff)) {
+                    rejected.add(new AttendanceSyncAckDto(event.getEventId(), AttendanceSyncAckDto.TOO_OLD));
+                } else {
+                    event.setDate(event.getTime().toLocalDate());
+                    events.add(event);
+                }
+            }
+        }
+        write(rejected, out);
+
+        // Oldest first, so a day's check-in is merged before its check-out
+        events.sort(Comparator.comparing(AttendanceEvent::getTime));
+        for (int start = 0; start < events.size(); start += chunkSize) {
+            List<AttendanceEvent> chunk = events.subList(start, Math.min(start + chunkSize, events.size()));
+            write(processChunk(chunk), out);
+        }
+    }
+
+    private List<AttendanceSyncAckDto> processChunk(List<AttendanceEvent> chunk) {
+        Map<String, String> results = new LinkedHashMap<>();
+
+        // 1) Duplicates within the chunk (acked once) or already in the in-memory index
+        List<AttendanceEvent> candidates = new ArrayList<>();
+        for (AttendanceEvent event : chunk) {
+            if (results.containsKey(event.getEventId())) {
+                continue;
+            }
+            if (isSeen(event)) {
+                results.put(event.getEventId(), AttendanceSyncAckDto.DUPLICATE);
+            } else {
+                results.put(event.getEventId(), null);
+                candidates.add(event);
+            }
+        }
+
+        // 2) Duplicates already in the database
+        Set<String> ids = new HashSet<>();
+        Set<Long> labourIds = new HashSet<>();
+        for (AttendanceEvent event : candidates) {
+            ids.add(event.getEventId());
+            labourIds.add(event.getLabourId());
+        }
+        Set<String> synced = new HashSet<>(attendanceJdbcRepository.findSyncedEventIds(ids));
+        Set<Long> existing = labourIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(labourRepository.findExistingIds(labourIds));
+
+        List<AttendanceEvent> checkIns = new ArrayList<>();
+        List<AttendanceEvent> checkOuts = new ArrayList<>();
+        for (AttendanceEvent event : candidates) {
+            if (synced.contains(event.getEventId())) {
+                markSeen(event);
+                results.put(event.getEventId(), AttendanceSyncAckDto.DUPLICATE);
+            } else if (!existing.contains(event.getLabourId())) {
+                results.put(event.getEventId(), AttendanceSyncAckDto.UNKNOWN_LABOUR);
+            } else if (event.isCheckIn()) {
+                checkIns.add(event);
+            } else {
+                checkOuts.add(event);
+            }
+        }
+
+        // 3) Merge: check-ins first, then check-outs
+        shiftRules.apply(checkIns);
+        shiftRules.apply(checkOuts);
+        List<AttendanceEvent> accepted = new ArrayList<>(checkIns);
+        if (!checkIns.isEmpty()) {
+            attendanceJdbcRepository.batchMergeCheckIn(checkIns);
+        }
+        int[] matched = checkOuts.isEmpty() ? new int[0] : attendanceJdbcRepository.batchMergeCheckOut(checkOuts);
+        for (int i = 0; i < checkOuts.size(); i++) {
+            if (matched[i] == 0) {
+                results.put(checkOuts.get(i).getEventId(), AttendanceSyncAckDto.NO_CHECKIN);
+            } else {
+                accepted.add(checkOuts.get(i));
+            }
+        }
+
+        // 4) Remember what was merged
+        if (!accepted.isEmpty()) {
+            attendanceJdbcRepository.markSynced(accepted, LocalDateTime.now());
+        }
+        for (AttendanceEvent event : accepted) {
+            markSeen(event);
+            results.put(event.getEventId(), AttendanceSyncAckDto.ACCEPTED);
+            if (event.isCheckIn()) {
+                todayBoard.onSyncedCheckIn(event);
+            } else {
+                todayBoard.onSyncedCheckOut(event);
+            }
+        }
+        payrollRollup.onAttendance(accepted);
+
+        List<AttendanceSyncAckDto> acks = new ArrayList<>(results.size());
+        results.forEach((id, result) -> acks.add(new AttendanceSyncAckDto(id, result)));
+        return acks;
+    }
+
+    private boolean isValid(AttendanceEvent event, LocalDateTime latest) {
+        return event != null
+                && event.getEventId() != null && !event.getEventId().isBlank() && event.getEventId().length() <= 64
+                && event.getLabourId() != null
+                && event.getTime() != null
+                && !event.getTime().isAfter(latest)
+                // date is optional on the wire; if sent it must be the day of time
+                && (event.getDate() == null || event.getDate().equals(event.getTime().toLocalDate()))
+                && (AttendanceEvent.IN.equals(event.getAction()) || AttendanceEvent.OUT.equals(event.getAction()));
+    }
+
+    private boolean isSeen(AttendanceEvent event) {
+        Map<Long, Set<String>> byLabour = seen.get(event.getDate());
+        if (byLabour == null) {
+            return false;
+        }
+        Set<String> ids = byLabour.get(event.getLabourId());
+        return ids != null && ids.contains(event.getEventId());
+    }
+
+    private void markSeen(AttendanceEvent event) {
+        if (event.getDate().isBefore(LocalDate.now().minusDays(seenDays))) {
+            return;
+        }
+        seen.computeIfAbsent(event.getDate(), d -> new ConcurrentHashMap<>())
+                .computeIfAbsent(event.getLabourId(), id -> ConcurrentHashMap.newKeySet())
+                .add(event.getEventId());
+    }
+
+    private void write(List<AttendanceSyncAckDto> acks, OutputStream out) throws IOException {
+        if (acks.isEmpty()) {
+            return;
+        }
+        for (AttendanceSyncAckDto ack : acks) {
+            out.write(objectMapper.writeValueAsBytes(ack));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    // Older days fall back to the database check
+    @Scheduled(cron = "0 30 0 * * *")
+    public void evictSeen() {
+        LocalDate cutoff = LocalDate.now().minusDays(seenDays);
+        seen.keySet().removeIf(date -> date.isBefore(cutoff));
+    }
+}
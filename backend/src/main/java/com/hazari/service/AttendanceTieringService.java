@@ -0,0 +1,117 @@
+package com.hazari.service;
+
+import com.hazari.repository.AttendanceJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Hot/cold tiering of attendance.
+ *
+ * The hot table keeps the current month plus the previous hot-months months.
+ * Every night older rows are moved, chunk by chunk, into attendance_archive,
+ * and their per-labour monthly totals are added to attendance_month_summary.
+ * Readers use getCutoff() to decide whether a date range needs the cold tier.
+ *
+ * The cutoff follows what is actually archived: the day after the newest
+ * archived date (one index lookup, reloaded every refresh-ms and after each
+ * run), or LocalDate.MIN while the archive is empty, so nothing reads the
+ * archive or refuses old dates until something has been moved. While the job
+ * is enabled the hot-months boundary is used when it is later, since any
+ * instance's job may move rows up to it at any time. Turning tiering off after
+ * a run keeps the archived range visible.
+ *
+ * Opt-in (attendance.tiering.enabled): the first run on an existing database
+ * moves every old row, so enable it once that can be scheduled.
+ */
+@Service
+public class AttendanceTieringService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceTieringService.class);
+
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+
+    private final boolean enabled;
+    private final int hotMonths;
+    private final int chunkSize;
+    private final long pauseMs;
+
+    // Day after the newest archived date, LocalDate.MIN if none; null until first loaded
+    private volatile LocalDate archivedBefore;
+
+    public AttendanceTieringService(AttendanceJdbcRepository attendanceJdbcRepository,
+                                    @Value("${attendance.tiering.enabled:false}") boolean enabled,
+                                    @Value("${attendance.tiering.hot-months:3}") int hotMonths,
+                                    @Value("${attendance.tiering.chunk-size:1000}") int chunkSize,
+                                    @Value("${attendance.tiering.pause-ms:100}") long pauseMs) {
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+        this.enabled = enabled;
+        this.hotMonths = hotMonths;
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+    }
+
+    /**
+     * Only dates before this can be in the archive; rows before it may still
+     * be in the hot table. LocalDate.MIN when nothing is archived.
+     */
+    public LocalDate getCutoff() {
+        LocalDate archived = archivedBefore;
+        if (archived == null) {
+            archived = refreshArchivedBefore();
+        }
+        if (enabled && archiveCutoff().isAfter(archived)) {
+            return archiveCutoff();
+        }
+        return archived;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${attendance.tiering.refresh-ms:60000}",
+            initialDelayString = "${attendance.tiering.refresh-ms:60000}")
+    public LocalDate refreshArchivedBefore() {
+        LocalDate newest = attendanceJdbcRepository.findNewestArchivedDate();
+        LocalDate archived = newest != null ? newest.plusDays(1) : LocalDate.MIN;
+        archivedBefore = archived;
+        return archived;
+    }
+
+    // First day the job keeps in the hot table
+    private LocalDate archiveCutoff() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(hotMonths);
+    }
+
+    @Scheduled(cron = "${attendance.tiering.cron:0 15 2 * * *}")
+    public void archiveOldMonths() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate cutoff = archiveCutoff();
+        long total = 0;
+        int moved;
+        do {
+            moved = attendanceJdbcRepository.archiveChunk(cutoff, chunkSize);
+            total += moved;
+            // Leave room for live traffic between chunks
+            if (moved == chunkSize && pauseMs > 0) {
+                try {
+                    Thread.sleep(pauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } while (moved == chunkSize);
+
+        if (total > 0) {
+            log.info("Archived {} attendance rows before {}", total, cutoff);
+        }
+        refreshArchivedBefore();
+    }
+}
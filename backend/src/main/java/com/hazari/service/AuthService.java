@@ -2,108 +2,144 @@ package com.hazari.service;
 
 import com.hazari.dto.ForgotPasswordRequest;
 import com.hazari.dto.LoginRequest;
+import com.hazari.dto.RefreshTokenRequest;
 import com.hazari.dto.RegisterRequest;
-import com.hazari.entity.Labour;
 import com.hazari.entity.User;
 import com.hazari.repository.UserRepository;
-import com.hazari.repository.LabourRepository;
 import com.hazari.config.JwtUtil;
+import com.hazari.config.RateLimiter;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class AuthService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
-    private final LabourRepository labourRepository;
+    private final LabourLinkService labourLinkService;
+    private final TokenVersionRegistry tokenVersions;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final RefreshTokenService refreshTokens;
+    private final TokenRevocationService tokenRevocations;
+    private final RateLimiter rateLimiter;
 
     public AuthService(UserRepository userRepository,
                        PasswordEncoder passwordEncoder,
                        JwtUtil jwtUtil,
                        AuthenticationManager authenticationManager,
-                       LabourRepository labourRepository) {
+                       LabourLinkService labourLinkService,
+                       TokenVersionRegistry tokenVersions,
+                       UserDetailsServiceImpl userDetailsService,
+                       RefreshTokenService refreshTokens,
+                       TokenRevocationService tokenRevocations,
+                       RateLimiter rateLimiter) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
         this.authenticationManager = authenticationManager;
-        this.labourRepository = labourRepository;
+        this.labourLinkService = labourLinkService;
+        this.tokenVersions = tokenVersions;
+        this.userDetailsService = userDetailsService;
+        this.refreshTokens = refreshTokens;
+        this.tokenRevocations = tokenRevocations;
+        this.rateLimiter = rateLimiter;
     }
 
     public Map<String, Object> login(LoginRequest request) {
+        // Per-username limit before any BCrypt work (per-IP is in RateLimitFilter).
+        // Only failed attempts count: a good login gives its slot back.
+        rateLimiter.checkUser("login", request.getUsername());
+
         Authentication auth = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getUsername(),
                         request.getPassword()
                 )
         );
+        rateLimiter.refundUser("login", request.getUsername());
 
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow();
-
-        System.out.println("LOGIN user: id=" + user.getId()
-                + ", username=" + user.getUsername()
-                + ", phone=" + user.getPhone()
-                + ", role=" + user.getRole());
-
-        String token = jwtUtil.generateToken(user);
+        // Principal loaded during authentication, labour id included (one joined query)
+        User user = (User) auth.getPrincipal();
 
         Map<String, Object> response = new HashMap<>();
-        response.put("token", token);
         response.put("role", user.getRole());
         response.put("userId", user.getId());
 
         // ⭐ For LABOUR users, ensure we always send labourId
+        Long labourId = null;
         if ("LABOUR".equalsIgnoreCase(user.getRole())) {
-            Labour labour = null;
-
-            // 1) Try by userId (for new correct rows)
-            labour = labourRepository.findByUserId(user.getId()).orElse(null);
-            if (labour != null) {
-                System.out.println("Found labour by userId: " + labour.getId());
+            labourId = user.getLabourId();
+            if (labourId == null) {
+                // Not linked yet (phone matching runs in LabourLinkService's backfill)
+                labourId = labourLinkService.createFor(user);
             }
+            response.put("labourId", labourId);
+        }
 
-            // 2) Fallback: try by phone (for older data)
-            if (labour == null && user.getPhone() != null) {
-                labour = labourRepository.findByPhone(user.getPhone()).orElse(null);
-                if (labour != null) {
-                    System.out.println("Found labour by phone: " + labour.getId());
-                }
-            }
+        // Role and ids go into the token so requests authenticate without a DB read
+        response.put("token", jwtUtil.generateToken(user, labourId));
+        response.put("refreshToken", refreshTokens.issue(user.getId()));
 
-            // 3) If still null, auto-create a Labour row so app keeps working
-            if (labour == null) {
-                System.out.println("No labour found, creating new Labour row for user " + user.getId());
-                labour = new Labour();
-                labour.setName(user.getUsername());
-                labour.setPhone(user.getUsername());
-                labour.setContractorId(null); // or set a default / required contractor later
-                labour.setAadhaarNumber(null);
-                labour.setDailyRate(0.0);
-                labour.setHireDate(java.time.LocalDate.now());
-                labour.setActive(true);
-                labour.setUserId(user.getId());
-
-                labour = labourRepository.save(labour);
-                System.out.println("Created labour with id=" + labour.getId());
-            }
+        log.debug("Login: userId={}, role={}, labourId={}", user.getId(), user.getRole(), labourId);
+        return response;
+    }
 
-            response.put("labourId", labour.getId());
+    // ----------------------------------------------------------------------
+    // REFRESH: rotates the refresh token, issues a new access token
+    // ----------------------------------------------------------------------
+    public Map<String, Object> refresh(RefreshTokenRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokens.rotate(request.getRefreshToken());
+        User stored = userRepository.findById(rotation.getUserId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
+        // Cached principal carries the labour id
+        User user = (User) userDetailsService.loadUserByUsername(stored.getUsername());
+
+        Long labourId = "LABOUR".equalsIgnoreCase(user.getRole()) ? user.getLabourId() : null;
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", jwtUtil.generateToken(user, labourId));
+        response.put("refreshToken", rotation.getRefreshToken());
+        response.put("role", user.getRole());
+        response.put("userId", user.getId());
+        if (labourId != null) {
+            response.put("labourId", labourId);
         }
-
-        System.out.println("LOGIN response = " + response);
         return response;
     }
 
+    // ----------------------------------------------------------------------
+    // LOGOUT: revokes the refresh token family and the current access token
+    // ----------------------------------------------------------------------
+    public void logout(String accessToken, RefreshTokenRequest request) {
+        if (request != null) {
+            refreshTokens.revokeFamily(request.getRefreshToken());
+        }
+        if (accessToken != null) {
+            try {
+                Claims claims = jwtUtil.parseClaims(accessToken);
+                tokenRevocations.revoke(claims.getId(), claims.getExpiration());
+            } catch (JwtException | IllegalArgumentException e) {
+                // Already invalid or expired, nothing to revoke
+            }
+        }
+    }
+
     // ----------------------------------------------------------------------
     // REGISTER: creates a User (CONTRACTOR or LABOUR)
     // ----------------------------------------------------------------------
@@ -138,6 +174,7 @@ public class AuthService {
         user.setRole(request.getRole()); // "LABOUR" or "CONTRACTOR"
 
         userRepository.save(user);
+        userDetailsService.evict(user.getUsername());
 
         // Response for Flutter
         Map<String, Object> response = new HashMap<>();
@@ -153,6 +190,8 @@ public class AuthService {
     if (request.getUsername() == null || request.getUsername().isBlank()) {
         throw new IllegalArgumentException("Username is required");
     }
+    // Guessing the phone for a known username is the attack here, so limit per username
+    rateLimiter.checkUser("forgot-password", request.getUsername());
     if (request.getPhone() == null || request.getPhone().isBlank()) {
         throw new IllegalArgumentException("Phone is required");
     }
@@ -173,7 +212,12 @@ public class AuthService {
     // ✅ Set custom new password from request
     String newRawPassword = request.getNewPassword();
     user.setPassword(passwordEncoder.encode(newRawPassword));
+    // Revokes every token issued before the reset
+    user.setTokenVersion(user.getTokenVersion() + 1);
     userRepository.save(user);
+    userDetailsService.evict(user.getUsername());
+    tokenVersions.onBumped(user.getId(), user.getTokenVersion());
+    refreshTokens.revokeAllForUser(user.getId());
 
     return "Password reset successful";
 }
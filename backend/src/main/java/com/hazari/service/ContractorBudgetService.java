@@ -0,0 +1,86 @@
+package com.hazari.service;
+
+import com.hazari.dto.ContractorBudgetDto;
+import com.hazari.entity.Contractor;
+import com.hazari.entity.ContractorBudgetLedger;
+import com.hazari.repository.ContractorBudgetJdbcRepository;
+import com.hazari.repository.ContractorBudgetLedgerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Budget burn-down from the contractor's ledger row: consumed (accrued
+ * wages), paid, remaining, and when the budget runs out at the average
+ * daily burn since the first accrual.
+ *
+ * The ledger is kept by deltas; a nightly reconcile recomputes it from the
+ * rollup and payments and logs any contractor whose row had drifted.
+ */
+@Service
+public class ContractorBudgetService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContractorBudgetService.class);
+
+    private final ContractorBudgetLedgerRepository ledgerRepository;
+    private final ContractorBudgetJdbcRepository budgetJdbcRepository;
+
+    public ContractorBudgetService(ContractorBudgetLedgerRepository ledgerRepository,
+                                   ContractorBudgetJdbcRepository budgetJdbcRepository) {
+        this.ledgerRepository = ledgerRepository;
+        this.budgetJdbcRepository = budgetJdbcRepository;
+    }
+
+    public ContractorBudgetDto getBudget(Contractor contractor) {
+        ContractorBudgetLedger ledger = ledgerRepository.findById(contractor.getId()).orElse(null);
+        BigDecimal consumed = ledger != null ? ledger.getAccruedAmount() : BigDecimal.ZERO;
+        BigDecimal paid = ledger != null ? ledger.getPaidAmount() : BigDecimal.ZERO;
+
+        ContractorBudgetDto dto = new ContractorBudgetDto();
+        dto.setConsumed(consumed);
+        dto.setPaid(paid);
+
+        if (ledger != null && ledger.getFirstAccrualDate() != null) {
+            long days = ChronoUnit.DAYS.between(ledger.getFirstAccrualDate(), LocalDate.now()) + 1;
+            dto.setDailyBurn(consumed.divide(BigDecimal.valueOf(days), 2, RoundingMode.HALF_UP));
+        }
+
+        if (contractor.getTotalBudget() != null) {
+            BigDecimal budget = BigDecimal.valueOf(contractor.getTotalBudget()).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal remaining = budget.subtract(consumed);
+            dto.setTotalBudget(budget);
+            dto.setRemaining(remaining);
+            if (remaining.signum() <= 0) {
+                dto.setProjectedExhaustionDate(LocalDate.now());
+            } else if (dto.getDailyBurn() != null && dto.getDailyBurn().signum() > 0) {
+                long daysLeft = remaining.divide(dto.getDailyBurn(), 0, RoundingMode.CEILING).longValue();
+                dto.setProjectedExhaustionDate(LocalDate.now().plusDays(daysLeft));
+            }
+        }
+        return dto;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillLedger() {
+        int contractors = budgetJdbcRepository.rebuildIfEmpty();
+        if (contractors > 0) {
+            log.info("Built budget ledger for {} contractors from payroll history", contractors);
+        }
+    }
+
+    @Scheduled(cron = "${payroll.ledger.reconcile-cron:0 30 3 * * *}")
+    public void reconcileLedger() {
+        int drifted = budgetJdbcRepository.reconcile();
+        if (drifted > 0) {
+            log.warn("Budget ledger had drifted for {} contractors, corrected from payroll history", drifted);
+        }
+    }
+}
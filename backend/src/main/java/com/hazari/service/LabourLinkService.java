@@ -0,0 +1,130 @@
+package com.hazari.service;
+
+import com.hazari.entity.Labour;
+import com.hazari.entity.User;
+import com.hazari.repository.LabourRepository;
+import com.hazari.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Makes sure every LABOUR user has a Labour row with userId set.
+ *
+ * Older rows were matched to their user by phone at login. That matching now
+ * runs once, in the background after startup: each unlinked LABOUR user gets
+ * the oldest unlinked Labour with the same phone, or a new Labour row. Login
+ * only falls back to createFor() for a user that is still unlinked, which
+ * links the same way, so a login before the backfill reaches the user does
+ * not leave the contractor's row orphaned next to a new one.
+ */
+@Service
+public class LabourLinkService {
+
+    private static final Logger log = LoggerFactory.getLogger(LabourLinkService.class);
+
+    private final UserRepository userRepository;
+    private final LabourRepository labourRepository;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final boolean backfillEnabled;
+
+    public LabourLinkService(UserRepository userRepository,
+                             LabourRepository labourRepository,
+                             UserDetailsServiceImpl userDetailsService,
+                             @Value("${auth.labour-link-backfill.enabled:true}") boolean backfillEnabled) {
+        this.userRepository = userRepository;
+        this.labourRepository = labourRepository;
+        this.userDetailsService = userDetailsService;
+        this.backfillEnabled = backfillEnabled;
+    }
+
+    // ====================================
+    // ✅ LOGIN FALLBACK: link (or create) the Labour row for a still-unlinked user
+    // Synchronized with the backfill so the two never create a row each
+    // ====================================
+    public synchronized Long createFor(User user) {
+        Labour existing = labourRepository.findByUserId(user.getId()).orElse(null);
+        if (existing != null) {
+            return existing.getId();
+        }
+        Labour labour = linkByPhone(user);
+        if (labour == null) {
+            labour = newLabour(user);
+        }
+        userDetailsService.evict(user.getUsername());
+        return labour.getId();
+    }
+
+    // ====================================
+    // ✅ ONE-TIME BACKFILL (background thread after startup)
+    // ====================================
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (!backfillEnabled) {
+            return;
+        }
+        Thread thread = new Thread(this::backfill, "labour-link-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void backfill() {
+        try {
+            List<User> users = userRepository.findUnlinkedLabourUsers();
+            if (users.isEmpty()) {
+                return;
+            }
+            int byPhone = 0;
+            int created = 0;
+            for (User user : users) {
+                synchronized (this) {
+                    if (labourRepository.findByUserId(user.getId()).isPresent()) {
+                        continue;
+                    }
+                    if (linkByPhone(user) != null) {
+                        byPhone++;
+                    } else {
+                        newLabour(user);
+                        created++;
+                    }
+                }
+                userDetailsService.evict(user.getUsername());
+            }
+            log.info("Linked {} LABOUR users to existing labour by phone, created {} labour rows", byPhone, created);
+        } catch (Exception e) {
+            log.error("Labour link backfill failed, it is retried on the next startup", e);
+        }
+    }
+
+    // Oldest unlinked Labour with the user's phone, now linked; null if there is none
+    private Labour linkByPhone(User user) {
+        if (user.getPhone() == null) {
+            return null;
+        }
+        Labour labour = labourRepository.findFirstByPhoneAndUserIdIsNullOrderByIdAsc(user.getPhone()).orElse(null);
+        if (labour == null) {
+            return null;
+        }
+        labour.setUserId(user.getId());
+        return labourRepository.save(labour);
+    }
+
+    private Labour newLabour(User user) {
+        Labour labour = new Labour();
+        labour.setName(user.getUsername());
+        labour.setPhone(user.getUsername());
+        labour.setContractorId(null); // or set a default / required contractor later
+        labour.setAadhaarNumber(null);
+        labour.setDailyRate(0.0);
+        labour.setHireDate(LocalDate.now());
+        labour.setActive(true);
+        labour.setUserId(user.getId());
+        return labourRepository.save(labour);
+    }
+}
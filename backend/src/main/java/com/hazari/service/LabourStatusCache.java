@@ -0,0 +1,241 @@
+package com.hazari.service;
+
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.entity.Attendance;
+import com.hazari.entity.ShiftRule;
+import com.hazari.repository.AttendanceRepository;
+import com.hazari.repository.LabourRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-labour "today" status behind GET /api/labour/today-status, the busiest
+ * endpoint. Check-in / check-out write through to the cached entry, so a
+ * dashboard open after the first one is served from memory. A miss reads the
+ * row once with findByLabourIdAndDate. Everything is dropped at midnight.
+ *
+ * When a write finds no usable entry (or is an offline-sync merge, whose
+ * result depends on the stored row) it leaves a fresh "pending" marker
+ * instead. A miss only caches what it read if the slot still holds the
+ * marker it saw before reading, so a load racing with a write can never
+ * overwrite the newer state.
+ *
+ * The endpoint is public, so a miss with no attendance row only caches
+ * "absent" for a labour that exists, and reads stop adding entries once
+ * max-size labours are cached for the day.
+ *
+ * Metrics: labour.status.cache{result=hit|miss}, labour.status.cache.size.
+ */
+@Service
+public class LabourStatusCache {
+
+    private final AttendanceRepository attendanceRepository;
+    private final LabourRepository labourRepository;
+    private final int maxSize;
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile Today today = new Today(LocalDate.now());
+
+    public LabourStatusCache(AttendanceRepository attendanceRepository,
+                             LabourRepository labourRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${attendance.status-cache.max-size:200000}") int maxSize) {
+        this.attendanceRepository = attendanceRepository;
+        this.labourRepository = labourRepository;
+        this.maxSize = maxSize;
+        this.hits = Counter.builder("labour.status.cache").tag("result", "hit")
+                .description("today-status reads served from memory").register(meterRegistry);
+        this.misses = Counter.builder("labour.status.cache").tag("result", "miss")
+                .description("today-status reads that went to the database").register(meterRegistry);
+        Gauge.builder("labour.status.cache.size", this, c -> c.today.entries.size())
+                .description("labours with a cached status today").register(meterRegistry);
+    }
+
+    // ----------------------------------------------------------------------
+    // READ
+    // ----------------------------------------------------------------------
+    public Map<String, Object> getTodayStatus(Long labourId) {
+        Today day = currentDay();
+        Entry entry = day.entries.get(labourId);
+        if (entry != null && !entry.pending) {
+            hits.increment();
+            return entry.toStatus(labourId);
+        }
+        misses.increment();
+
+        Optional<Attendance> row = attendanceRepository.findByLabourIdAndDate(labourId, day.date);
+        Entry loaded = row.map(Entry::of).orElse(Entry.ABSENT);
+        if (row.isEmpty() && !labourRepository.existsById(labourId)) {
+            // Unknown id: answered, never stored
+            return loaded.toStatus(labourId);
+        }
+        if (entry == null) {
+            if (day.entries.size() < maxSize) {
+                day.entries.putIfAbsent(labourId, loaded);
+            }
+        } else {
+            day.entries.replace(labourId, entry, loaded);
+        }
+        return loaded.toStatus(labourId);
+    }
+
+    // ----------------------------------------------------------------------
+    // WRITE-THROUGH (called after the row is in the database)
+    // ----------------------------------------------------------------------
+    public void onCheckIn(AttendanceEvent event) {
+        Today day = dayFor(event.getDate());
+        if (day == null) {
+            return;
+        }
+        ShiftRule shift = shift(event);
+        day.entries.compute(event.getLabourId(), (id, old) -> {
+            if (old == null || old.pending) {
+                return Entry.pending();
+            }
+            // The upsert overwrites time_in and keeps time_out
+            return Entry.of(event.getTime(), old.timeOut, shift.isLate(event.getTime()), shift);
+        });
+    }
+
+    public void onCheckOut(AttendanceEvent event) {
+        Today day = dayFor(event.getDate());
+        if (day == null) {
+            return;
+        }
+        ShiftRule shift = shift(event);
+        day.entries.compute(event.getLabourId(), (id, old) -> {
+            if (old == null || old.pending || old.timeIn == null) {
+                return Entry.pending();
+            }
+            return Entry.of(old.timeIn, event.getTime(), old.late, shift);
+        });
+    }
+
+    // Offline merges keep the earliest / latest time, reload from the row
+    public void onSyncedWrite(AttendanceEvent event) {
+        onExternalWrite(event.getLabourId(), event.getDate());
+    }
+
+    // Row changed by another instance (seen by the today board's sync), reload it
+    public void onExternalWrite(Long labourId, LocalDate date) {
+        Today day = dayFor(date);
+        if (day != null) {
+            day.entries.put(labourId, Entry.pending());
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // INTERNALS
+    // ----------------------------------------------------------------------
+    private Today currentDay() {
+        Today day = today;
+        LocalDate now = LocalDate.now();
+        if (!day.date.equals(now)) {
+            synchronized (this) {
+                if (!today.date.equals(now)) {
+                    today = new Today(now);
+                }
+                day = today;
+            }
+        }
+        return day;
+    }
+
+    private Today dayFor(LocalDate date) {
+        Today day = currentDay();
+        return day.date.equals(date) ? day : null;
+    }
+
+    private static ShiftRule shift(AttendanceEvent event) {
+        return event.getShift() != null ? event.getShift() : new ShiftRule();
+    }
+
+    private static String hours(long minutes) {
+        return String.format("%d.%02d", minutes / 60, (minutes % 60) * 100 / 60);
+    }
+
+    private static final class Today {
+        final LocalDate date;
+        final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+        Today(LocalDate date) {
+            this.date = date;
+        }
+    }
+
+    /** Immutable; every change is a new instance so replace() can detect it. */
+    private static final class Entry {
+        static final Entry ABSENT = new Entry(null, null, false, null, null, false);
+
+        final LocalDateTime timeIn;
+        final LocalDateTime timeOut;
+        final boolean late;
+        final Integer workedMinutes;
+        final Integer overtimeMinutes;
+        final boolean pending;
+
+        Entry(LocalDateTime timeIn, LocalDateTime timeOut, boolean late,
+              Integer workedMinutes, Integer overtimeMinutes, boolean pending) {
+            this.timeIn = timeIn;
+            this.timeOut = timeOut;
+            this.late = late;
+            this.workedMinutes = workedMinutes;
+            this.overtimeMinutes = overtimeMinutes;
+            this.pending = pending;
+        }
+
+        static Entry pending() {
+            return new Entry(null, null, false, null, null, true);
+        }
+
+        static Entry of(Attendance a) {
+            return new Entry(a.getTimeIn(), a.getTimeOut(), Boolean.TRUE.equals(a.getLate()),
+                    a.getWorkedMinutes(), a.getOvertimeMinutes(), false);
+        }
+
+        // Same arithmetic as the check-out UPDATE in AttendanceJdbcRepository
+        static Entry of(LocalDateTime timeIn, LocalDateTime timeOut, boolean late, ShiftRule shift) {
+            Integer worked = null;
+            Integer overtime = null;
+            if (timeIn != null && timeOut != null && !timeOut.isBefore(timeIn)) {
+                worked = (int) Math.max(Duration.between(timeIn, timeOut).toMinutes() - shift.getBreakMinutes(), 0);
+                overtime = Math.max(worked - shift.getRegularMinutes(), 0);
+            }
+            return new Entry(timeIn, timeOut, late, worked, overtime, false);
+        }
+
+        Map<String, Object> toStatus(Long labourId) {
+            boolean checkedIn = timeIn != null;
+            boolean checkedOut = checkedIn && timeOut != null;
+
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("labourId", labourId);
+            status.put("todayCheckedIn", checkedIn);
+            status.put("todayCheckedOut", checkedOut);
+            status.put("late", checkedIn && late);
+            if (checkedOut && workedMinutes != null) {
+                status.put("hoursWorked", hours(workedMinutes));
+                status.put("overtimeHours", hours(overtimeMinutes != null ? overtimeMinutes : 0));
+            } else if (checkedIn && !checkedOut) {
+                // Hours so far, not stored
+                long minutes = Math.max(Duration.between(timeIn, LocalDateTime.now()).toMinutes(), 0);
+                status.put("hoursWorked", hours(minutes));
+            } else {
+                status.put("hoursWorked", null);
+            }
+            return status;
+        }
+    }
+}
@@ -11,16 +11,22 @@ import java.util.Optional;
 public class LeaveService {
 
     private final LeaveRepository leaveRepository;
+    private final PayrollRollupService payrollRollup;
 
-    public LeaveService(LeaveRepository leaveRepository) {
+    public LeaveService(LeaveRepository leaveRepository, PayrollRollupService payrollRollup) {
         this.leaveRepository = leaveRepository;
+        this.payrollRollup = payrollRollup;
     }
 
     public Leave createLeaveRequest(Leave leave) {
         if (leave.getStatus() == null) {
             leave.setStatus("PENDING");
         }
-        return leaveRepository.save(leave);
+        Leave saved = leaveRepository.save(leave);
+        if ("APPROVED".equals(saved.getStatus())) {
+            payrollRollup.onLeaveChanged(saved);
+        }
+        return saved;
     }
 
     public List<Leave> getPendingLeaves() {
@@ -35,8 +41,14 @@ public class LeaveService {
         Optional<Leave> opt = leaveRepository.findById(leaveId);
         if (opt.isPresent()) {
             Leave l = opt.get();
+            boolean wasApproved = "APPROVED".equals(l.getStatus());
             l.setStatus(status);
-            return leaveRepository.save(l);
+            Leave saved = leaveRepository.save(l);
+            // Approved leave days are excluded from pay
+            if (wasApproved != "APPROVED".equals(status)) {
+                payrollRollup.onLeaveChanged(saved);
+            }
+            return saved;
         } else {
             throw new RuntimeException("Leave not found");
         }
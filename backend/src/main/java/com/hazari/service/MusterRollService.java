@@ -0,0 +1,118 @@
+package com.hazari.service;
+
+import com.hazari.dto.MusterRollRowDto;
+import com.hazari.repository.MusterRollJdbcRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Monthly muster roll for one contractor, written as CSV straight from a
+ * streaming JDBC cursor. Memory use does not depend on the number of rows.
+ *
+ * Rows are ordered by labour, then date. A month before the tiering cutoff
+ * (see AttendanceTieringService) is read from both tiers in one statement,
+ * so a month being archived while the export runs still lists each day once
+ * and in order.
+ */
+@Service
+public class MusterRollService {
+
+    private static final Pattern PHONE = Pattern.compile("\\+?[0-9 ]+");
+
+    private static final String HEADER = "labour_id,labour_name,phone,date,time_in,time_out,hours_worked,overtime_hours,late,status";
+
+    private final MusterRollJdbcRepository musterRollJdbcRepository;
+    private final AttendanceTieringService tiering;
+
+    public MusterRollService(MusterRollJdbcRepository musterRollJdbcRepository,
+                             AttendanceTieringService tiering) {
+        this.musterRollJdbcRepository = musterRollJdbcRepository;
+        this.tiering = tiering;
+    }
+
+    public void writeCsv(Long contractorId, YearMonth month, OutputStream out) throws IOException {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+
+        // UTF-8 BOM so Excel shows Hindi names correctly
+        out.write(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write("\r\n");
+
+        boolean withArchive = from.isBefore(tiering.getCutoff());
+        try (Stream<MusterRollRowDto> rows = musterRollJdbcRepository.stream(contractorId, from, to, withArchive)) {
+            Iterator<MusterRollRowDto> it = rows.iterator();
+            while (it.hasNext()) {
+                writeRow(writer, it.next());
+            }
+        }
+        writer.flush();
+    }
+
+    private static void writeRow(Writer writer, MusterRollRowDto row) throws IOException {
+        writer.write(String.valueOf(row.getLabourId()));
+        writer.write(',');
+        writer.write(csv(row.getLabourName()));
+        writer.write(',');
+        writer.write(csv(row.getPhone()));
+        writer.write(',');
+        writer.write(row.getDate().toString());
+        writer.write(',');
+        writer.write(row.getTimeIn() != null ? row.getTimeIn().toString() : "");
+        writer.write(',');
+        writer.write(row.getTimeOut() != null ? row.getTimeOut().toString() : "");
+        writer.write(',');
+        if (row.getWorkedMinutes() != null) {
+            writer.write(hours(row.getWorkedMinutes()));
+        } else if (row.getTimeIn() != null && row.getTimeOut() != null && row.getTimeOut().isAfter(row.getTimeIn())) {
+            // Rows written before worked minutes were stamped at check-out
+            writer.write(hours(Duration.between(row.getTimeIn(), row.getTimeOut()).toMinutes()));
+        }
+        writer.write(',');
+        if (row.getOvertimeMinutes() != null) {
+            writer.write(hours(row.getOvertimeMinutes()));
+        }
+        writer.write(',');
+        if (row.getLate() != null) {
+            writer.write(row.getLate() ? "Y" : "N");
+        }
+        writer.write(',');
+        writer.write(csv(row.getStatus()));
+        writer.write("\r\n");
+    }
+
+    private static String hours(long minutes) {
+        return String.format("%d.%02d", minutes / 60, (minutes % 60) * 100 / 60);
+    }
+
+    // RFC 4180 quoting; a leading =, +, - or @ (other than a phone number) is prefixed
+    // so spreadsheets do not run it as a formula
+    private static String csv(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String text = value;
+        char first = text.charAt(0);
+        boolean number = PHONE.matcher(text).matches();
+        if (!number && (first == '=' || first == '+' || first == '-' || first == '@')) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
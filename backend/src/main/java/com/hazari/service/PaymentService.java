@@ -1,19 +1,147 @@
-
-// src/main/java/com/hazari/service/PaymentService.java - CORRECTED
+// src/main/java/com/hazari/service/PaymentService.java
 package com.hazari.service;
 
+import com.hazari.dto.CursorPageDto;
+import com.hazari.dto.PaymentHistoryDto;
 import com.hazari.dto.PaymentSummaryDto;
+import com.hazari.dto.PaymentTotalsDto;
+import com.hazari.entity.Labour;
+import com.hazari.entity.PaymentBalance;
+import com.hazari.entity.PayrollMonthSummary;
+import com.hazari.repository.LabourRepository;
+import com.hazari.repository.PaymentBalanceRepository;
+import com.hazari.repository.PaymentJdbcRepository;
+import com.hazari.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-@Service  // ADD THIS ANNOTATION
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+@Service
 public class PaymentService {
-    
-    // REMOVE AttendanceRepository dependency - not needed for dummy data
-    public PaymentSummaryDto getPaymentSummary(Long userId) {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+
+    private static final BigDecimal MINUTES_PER_HOUR = BigDecimal.valueOf(60);
+    private static final int DEFAULT_PAGE_SIZE = 30;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+    private final LabourRepository labourRepository;
+    private final PayrollRollupService payrollRollup;
+    private final PaymentRepository paymentRepository;
+    private final PaymentBalanceRepository paymentBalanceRepository;
+    private final PaymentJdbcRepository paymentJdbcRepository;
+
+    public PaymentService(LabourRepository labourRepository,
+                          PayrollRollupService payrollRollup,
+                          PaymentRepository paymentRepository,
+                          PaymentBalanceRepository paymentBalanceRepository,
+                          PaymentJdbcRepository paymentJdbcRepository) {
+        this.labourRepository = labourRepository;
+        this.payrollRollup = payrollRollup;
+        this.paymentRepository = paymentRepository;
+        this.paymentBalanceRepository = paymentBalanceRepository;
+        this.paymentJdbcRepository = paymentJdbcRepository;
+    }
+
+    // ====================================
+    // ✅ PAYMENT SUMMARY for one month (default: current)
+    // One lookup in the payroll rollup, no attendance scan
+    // ====================================
+    public PaymentSummaryDto getPaymentSummary(Long userId, YearMonth month) {
+        Labour labour = labourRepository.findByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("Labour not found"));
+        YearMonth target = month != null ? month : YearMonth.now();
+        PayrollMonthSummary row = payrollRollup.getMonth(labour.getId(), target);
+
         PaymentSummaryDto summary = new PaymentSummaryDto();
-        summary.setTotalAmount(5000.0);
-        summary.setDaysWorked(22);
-        summary.setDailyRate(227.27);
+        summary.setMonth(target.toString());
+        summary.setTotalAmount(row.getAmount());
+        summary.setDaysWorked(row.getDaysWorked());
+        summary.setLeaveDays(row.getLeaveDays());
+        summary.setHoursWorked(hours(row.getWorkedMinutes()));
+        summary.setOvertimeHours(hours(row.getOvertimeMinutes()));
+        summary.setDailyRate(row.getDailyRate());
         return summary;
     }
+
+    private static BigDecimal hours(long minutes) {
+        return BigDecimal.valueOf(minutes).divide(MINUTES_PER_HOUR, 2, RoundingMode.HALF_UP);
+    }
+
+    // ====================================
+    // ✅ PAYMENT HISTORY (keyset pagination, newest first)
+    // Cursor is "paymentDate:id" of the last row returned
+    // ====================================
+    public CursorPageDto<PaymentHistoryDto> getPaymentHistory(Long userId, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        LocalDate date = LATEST;
+        long id = Long.MAX_VALUE;
+        if (cursor != null) {
+            int sep = cursor.indexOf(':');
+            if (sep < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            try {
+                date = LocalDate.parse(cursor.substring(0, sep));
+                id = Long.parseLong(cursor.substring(sep + 1));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        List<PaymentHistoryDto> items = paymentRepository.findHistoryPage(
+                userId, date, id, PageRequest.of(0, pageSize));
+
+        String next = null;
+        if (items.size() == pageSize) {
+            PaymentHistoryDto last = items.get(items.size() - 1);
+            next = last.getPaymentDate() + ":" + last.getId();
+        }
+        return new CursorPageDto<>(items, next);
+    }
+
+    // ====================================
+    // ✅ YEAR-TO-DATE / LAST PAYMENT
+    // Read from the running balance row, never sums history
+    // ====================================
+    public PaymentTotalsDto getPaymentTotals(Long userId) {
+        int year = LocalDate.now().getYear();
+        PaymentTotalsDto totals = new PaymentTotalsDto();
+        totals.setUserId(userId);
+        totals.setYear(year);
+        totals.setYtdTotal(BigDecimal.ZERO);
+        totals.setLifetimeTotal(BigDecimal.ZERO);
+
+        PaymentBalance balance = paymentBalanceRepository.findById(userId).orElse(null);
+        if (balance != null) {
+            // Nothing paid yet this year if the balance is from an earlier one
+            if (balance.getBalanceYear() == year) {
+                totals.setYtdTotal(balance.getYtdTotal());
+            }
+            totals.setLifetimeTotal(balance.getLifetimeTotal());
+            totals.setPaymentCount(balance.getPaymentCount());
+            totals.setLastPaymentDate(balance.getLastPaymentDate());
+            totals.setLastPaymentAmount(balance.getLastPaymentAmount());
+        }
+        return totals;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillBalances() {
+        int users = paymentJdbcRepository.rebuildBalancesIfEmpty();
+        if (users > 0) {
+            log.info("Built payment balances for {} users from payment history", users);
+        }
+    }
 }
@@ -0,0 +1,211 @@
+package com.hazari.service;
+
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.entity.Leave;
+import com.hazari.entity.PayrollMonthSummary;
+import com.hazari.repository.LabourRepository;
+import com.hazari.repository.PayrollJdbcRepository;
+import com.hazari.repository.PayrollMonthSummaryRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps payroll_month_summary in step with attendance and leave.
+ *
+ * Attendance writes and leave approvals / rejections only mark the
+ * labour-months they touch; nothing is recomputed on the request path. Every
+ * flush-ms the marked months are refreshed in one batch, so a gang checking
+ * in costs one refresh per labour-month rather than one per tap. A failed
+ * flush puts its months back for the next one.
+ *
+ * Rows may therefore lag attendance by up to flush-ms. getMonth() refreshes a
+ * still-marked month before reading it, and a payroll run refreshes the month
+ * it pays.
+ *
+ * Reconciliation covers what the write hooks cannot see:
+ * - every rate-check-ms, months from reconcile-months back whose daily_rate no
+ *   longer matches the labour row (rates are edited outside this service);
+ * - nightly, every labour's months from reconcile-months back, which repairs
+ *   months whose refresh was lost (e.g. an instance stopped before flushing)
+ *   and the month that has just closed.
+ */
+@Service
+public class PayrollRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(PayrollRollupService.class);
+
+    private final PayrollJdbcRepository payrollJdbcRepository;
+    private final PayrollMonthSummaryRepository payrollMonthSummaryRepository;
+    private final LabourRepository labourRepository;
+
+    private final int batchSize;
+    private final int reconcileMonths;
+
+    // labourId -> first days of the months waiting for a refresh; sets only change inside compute
+    private final Map<Long, Set<LocalDate>> pending = new ConcurrentHashMap<>();
+
+    public PayrollRollupService(PayrollJdbcRepository payrollJdbcRepository,
+                                PayrollMonthSummaryRepository payrollMonthSummaryRepository,
+                                LabourRepository labourRepository,
+                                @Value("${payroll.rollup.batch-size:500}") int batchSize,
+                                @Value("${payroll.rollup.reconcile-months:1}") int reconcileMonths) {
+        this.payrollJdbcRepository = payrollJdbcRepository;
+        this.payrollMonthSummaryRepository = payrollMonthSummaryRepository;
+        this.labourRepository = labourRepository;
+        this.batchSize = batchSize;
+        this.reconcileMonths = reconcileMonths;
+    }
+
+    // ----------------------------------------------------------------------
+    // WRITE HOOKS (called after the source rows are in the database)
+    // ----------------------------------------------------------------------
+    public void onAttendance(AttendanceEvent event) {
+        onAttendance(List.of(event));
+    }
+
+    public void onAttendance(Collection<AttendanceEvent> events) {
+        for (AttendanceEvent event : events) {
+            mark(event.getLabourId(), event.getDate().withDayOfMonth(1));
+        }
+    }
+
+    public void onLeaveChanged(Leave leave) {
+        if (leave.getLabourId() == null || leave.getStartDate() == null || leave.getEndDate() == null) {
+            return;
+        }
+        for (LocalDate month = leave.getStartDate().withDayOfMonth(1);
+             !month.isAfter(leave.getEndDate());
+             month = month.plusMonths(1)) {
+            mark(leave.getLabourId(), month);
+        }
+    }
+
+    private void mark(Long labourId, LocalDate month) {
+        pending.compute(labourId, (k, months) -> {
+            Set<LocalDate> set = months != null ? months : new HashSet<>();
+            set.add(month);
+            return set;
+        });
+    }
+
+    // ----------------------------------------------------------------------
+    // READ
+    // ----------------------------------------------------------------------
+    public PayrollMonthSummary getMonth(Long labourId, YearMonth month) {
+        LocalDate first = month.atDay(1);
+        boolean[] marked = new boolean[1];
+        pending.computeIfPresent(labourId, (k, months) -> {
+            marked[0] = months.remove(first);
+            return months.isEmpty() ? null : months;
+        });
+        if (marked[0]) {
+            // Changed since the last flush: bring it up to date before reading
+            payrollJdbcRepository.refreshMonth(labourId, first);
+        }
+        return payrollMonthSummaryRepository.findByLabourIdAndMonth(labourId, first)
+                .orElseGet(() -> {
+                    // Month with no writes since the rollup existed: build it once
+                    payrollJdbcRepository.refreshMonth(labourId, first);
+                    return payrollMonthSummaryRepository.findByLabourIdAndMonth(labourId, first)
+                            .orElseThrow(() -> new RuntimeException("Labour not found"));
+                });
+    }
+
+    // ----------------------------------------------------------------------
+    // FLUSH (off the request path)
+    // ----------------------------------------------------------------------
+    @Scheduled(fixedDelayString = "${payroll.rollup.flush-ms:2000}")
+    public void flush() {
+        Map<Long, Set<LocalDate>> batch = new HashMap<>();
+        int size = 0;
+        for (Long labourId : pending.keySet()) {
+            Set<LocalDate> months = pending.remove(labourId);
+            if (months == null || months.isEmpty()) {
+                continue;
+            }
+            batch.put(labourId, months);
+            size += months.size();
+            if (size >= batchSize) {
+                refresh(batch);
+                batch = new HashMap<>();
+                size = 0;
+            }
+        }
+        refresh(batch);
+    }
+
+    private void refresh(Map<Long, Set<LocalDate>> months) {
+        if (months.isEmpty()) {
+            return;
+        }
+        try {
+            payrollJdbcRepository.refreshMonths(months);
+        } catch (Exception e) {
+            log.error("Failed to refresh payroll rollup for labours {}, retrying on the next flush", months.keySet(), e);
+            months.forEach((labourId, set) -> set.forEach(month -> mark(labourId, month)));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("Payroll rollup for labours {} left stale at shutdown; fixed by the nightly reconcile",
+                    pending.keySet());
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // RECONCILE
+    // ----------------------------------------------------------------------
+    @Scheduled(fixedDelayString = "${payroll.rollup.rate-check-ms:300000}")
+    public void refreshChangedRates() {
+        Map<Long, Set<LocalDate>> drifted = payrollJdbcRepository.findRateDrift(reconcileFrom());
+        if (!drifted.isEmpty()) {
+            log.info("Daily rate changed for {} labours, refreshing their open months", drifted.size());
+            drifted.forEach((labourId, months) -> months.forEach(month -> mark(labourId, month)));
+        }
+    }
+
+    @Scheduled(cron = "${payroll.rollup.reconcile-cron:0 45 1 * * *}")
+    public void reconcile() {
+        LocalDate from = reconcileFrom();
+        Set<LocalDate> months = new HashSet<>();
+        for (LocalDate month = from; !month.isAfter(LocalDate.now()); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        long afterId = 0;
+        int labours = 0;
+        List<Long> ids;
+        do {
+            ids = labourRepository.findIdsAfter(afterId, PageRequest.of(0, Math.max(batchSize / months.size(), 1)));
+            Map<Long, Set<LocalDate>> batch = new HashMap<>();
+            for (Long id : ids) {
+                batch.put(id, months);
+                afterId = id;
+            }
+            refresh(batch);
+            labours += ids.size();
+        } while (!ids.isEmpty());
+        log.info("Reconciled payroll rollup for {} labours from {}", labours, from);
+    }
+
+    private LocalDate reconcileFrom() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(reconcileMonths);
+    }
+}
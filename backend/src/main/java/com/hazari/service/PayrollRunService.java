@@ -0,0 +1,245 @@
+package com.hazari.service;
+
+import com.hazari.dto.PayrollRunStatusDto;
+import com.hazari.entity.Payment;
+import com.hazari.entity.PayrollRunCheckpoint;
+import com.hazari.repository.PaymentJdbcRepository;
+import com.hazari.repository.PayrollJdbcRepository;
+import com.hazari.repository.PayrollRunCheckpointRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Month-end payroll run.
+ *
+ * Fans out one task per contractor over a bounded worker pool. Each task
+ * refreshes its labours' payroll rollup (including labours who have since
+ * moved to another contractor, whose month still accrued to this one), inserts their payments in JDBC
+ * batches and marks the contractor DONE, all in one transaction. A run that
+ * crashes or is restarted skips contractors already DONE for that month.
+ *
+ * db-concurrency caps how many contractors touch the database at once,
+ * independent of the pool size, so the run leaves connections for live
+ * check-in traffic.
+ */
+@Service
+public class PayrollRunService {
+
+    private static final Logger log = LoggerFactory.getLogger(PayrollRunService.class);
+
+    private final PayrollJdbcRepository payrollJdbcRepository;
+    private final PaymentJdbcRepository paymentJdbcRepository;
+    private final PayrollRunCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final Semaphore dbPermits;
+    private final ExecutorService workers;
+
+    private final AtomicReference<Run> current = new AtomicReference<>();
+
+    public PayrollRunService(PayrollJdbcRepository payrollJdbcRepository,
+                             PaymentJdbcRepository paymentJdbcRepository,
+                             PayrollRunCheckpointRepository checkpointRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${payroll.run.workers:4}") int workers,
+                             @Value("${payroll.run.db-concurrency:2}") int dbConcurrency,
+                             @Value("${payroll.run.batch-size:500}") int batchSize) {
+        this.payrollJdbcRepository = payrollJdbcRepository;
+        this.paymentJdbcRepository = paymentJdbcRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.dbPermits = new Semaphore(dbConcurrency);
+        this.workers = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "payroll-run");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // ----------------------------------------------------------------------
+    // START / STATUS
+    // ----------------------------------------------------------------------
+    public PayrollRunStatusDto start(YearMonth month) {
+        // Paying a month that is still running would pay partial attendance and block the real run
+        if (!month.isBefore(YearMonth.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Month " + month + " has not ended yet");
+        }
+        Run run = new Run(month);
+        Run previous = current.get();
+        if ((previous != null && !previous.finished) || !current.compareAndSet(previous, run)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A payroll run is already in progress");
+        }
+
+        LocalDate first = month.atDay(1);
+        Set<Long> done;
+        List<Long> contractorIds;
+        try {
+            done = new HashSet<>(checkpointRepository.findContractorIds(first, PayrollRunCheckpoint.DONE));
+            contractorIds = payrollJdbcRepository.findContractorIds(first);
+        } catch (RuntimeException e) {
+            finish(run);
+            throw e;
+        }
+        run.total = contractorIds.size();
+
+        CompletableFuture<?>[] tasks = contractorIds.stream()
+                .filter(id -> {
+                    if (done.contains(id)) {
+                        run.skipped.incrementAndGet();
+                        return false;
+                    }
+                    return true;
+                })
+                .map(id -> CompletableFuture.runAsync(() -> payContractor(run, id), workers))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(tasks).whenComplete((ignored, e) -> finish(run));
+        log.info("Payroll run for {} started: {} contractors, {} already paid", month, run.total, run.skipped.get());
+        return run.toDto();
+    }
+
+    /** Latest run, or null if none has been started since startup. */
+    public PayrollRunStatusDto getStatus() {
+        Run run = current.get();
+        return run != null ? run.toDto() : null;
+    }
+
+    // ----------------------------------------------------------------------
+    // ONE CONTRACTOR (worker thread)
+    // ----------------------------------------------------------------------
+    private void payContractor(Run run, Long contractorId) {
+        LocalDate first = run.month.atDay(1);
+        try {
+            dbPermits.acquire();
+            try {
+                List<Payment> paid = transactionTemplate.execute(status -> {
+                    Map<Long, Set<LocalDate>> months = new HashMap<>();
+                    for (Long labourId : payrollJdbcRepository.findLabourIds(contractorId, first)) {
+                        months.put(labourId, Set.of(first));
+                    }
+                    payrollJdbcRepository.refreshMonths(months);
+
+                    List<Payment> payments = payrollJdbcRepository.findPayable(contractorId, first);
+                    LocalDate today = LocalDate.now();
+                    BigDecimal amount = BigDecimal.ZERO;
+                    for (Payment payment : payments) {
+                        payment.setPaymentDate(today);
+                        amount = amount.add(payment.getAmount());
+                    }
+                    if (!payments.isEmpty()) {
+                        paymentJdbcRepository.batchInsert(payments, batchSize);
+                    }
+                    payrollJdbcRepository.saveCheckpoint(first, contractorId, PayrollRunCheckpoint.DONE,
+                            payments.size(), amount, null);
+                    return payments;
+                });
+                // Counted only once committed
+                for (Payment payment : paid) {
+                    run.addAmount(payment.getAmount());
+                }
+                run.labours.addAndGet(paid.size());
+                run.done.incrementAndGet();
+            } finally {
+                dbPermits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.failed.incrementAndGet();
+        } catch (Exception e) {
+            log.error("Payroll run for {} failed for contractor {}", run.month, contractorId, e);
+            run.failed.incrementAndGet();
+            try {
+                payrollJdbcRepository.saveCheckpoint(first, contractorId, PayrollRunCheckpoint.FAILED,
+                        0, null, String.valueOf(e.getMessage()));
+            } catch (Exception ignored) {
+                // Not DONE either way, the next run retries this contractor
+            }
+        }
+    }
+
+    private void finish(Run run) {
+        run.elapsedNanos = System.nanoTime() - run.startNanos;
+        run.finished = true;
+        PayrollRunStatusDto status = run.toDto();
+        log.info("Payroll run for {} finished: {} paid, {} failed, {} skipped, {} labours in {} ms ({} labours/sec)",
+                run.month, status.getContractorsDone(), status.getContractorsFailed(),
+                status.getContractorsSkipped(), status.getLaboursPaid(), status.getElapsedMs(),
+                String.format("%.1f", status.getLaboursPerSecond()));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Interrupted contractors roll back and stay unpaid until the next run
+        workers.shutdownNow();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private static final class Run {
+        final YearMonth month;
+        final long startNanos = System.nanoTime();
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicLong labours = new AtomicLong();
+        final AtomicReference<BigDecimal> amount = new AtomicReference<>(BigDecimal.ZERO);
+        volatile int total;
+        volatile long elapsedNanos;
+        volatile boolean finished;
+
+        Run(YearMonth month) {
+            this.month = month;
+        }
+
+        void addAmount(BigDecimal paid) {
+            amount.accumulateAndGet(paid, BigDecimal::add);
+        }
+
+        PayrollRunStatusDto toDto() {
+            long elapsed = finished ? elapsedNanos : System.nanoTime() - startNanos;
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsed);
+            PayrollRunStatusDto dto = new PayrollRunStatusDto();
+            dto.setMonth(month.toString());
+            if (!finished) {
+                dto.setStatus(PayrollRunStatusDto.RUNNING);
+            } else {
+                dto.setStatus(failed.get() == 0
+                        ? PayrollRunStatusDto.COMPLETED
+                        : PayrollRunStatusDto.COMPLETED_WITH_ERRORS);
+            }
+            dto.setContractorsTotal(total);
+            dto.setContractorsDone(done.get());
+            dto.setContractorsFailed(failed.get());
+            dto.setContractorsSkipped(skipped.get());
+            dto.setLaboursPaid(labours.get());
+            dto.setTotalAmount(amount.get());
+            dto.setElapsedMs(elapsedMs);
+            dto.setLaboursPerSecond(elapsedMs > 0 ? labours.get() * 1000.0 / elapsedMs : 0);
+            return dto;
+        }
+    }
+}
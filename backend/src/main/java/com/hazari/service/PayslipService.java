@@ -0,0 +1,258 @@
+package com.hazari.service;
+
+import com.hazari.dto.PayslipStatusDto;
+import com.hazari.entity.Labour;
+import com.hazari.entity.PayrollMonthSummary;
+import com.hazari.repository.LabourRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payslip generation off the request thread.
+ *
+ * A request for a labour-month either finds a rendered file on disk that was
+ * made from the current payroll rollup row (served as is), joins the render
+ * already in flight for that labour-month, or queues a new one. Renders run on a
+ * small fixed pool behind a bounded queue; when the queue is full the request
+ * gets a 503 instead of piling up. Files are written to a temp name and moved
+ * into place, so a download never sees a half-written payslip.
+ *
+ * Each payslip has a ".version" sidecar holding the rollup row it was
+ * rendered from (updated_at plus the amounts). Freshness compares that with
+ * the row, never file times with database times, so it holds when the JVM
+ * and MySQL clocks or time zones differ, and for two changes in one second.
+ * The sidecar is written after the payslip; if that is lost, the next
+ * request renders again.
+ */
+@Service
+public class PayslipService {
+
+    private static final Logger log = LoggerFactory.getLogger(PayslipService.class);
+
+    private static final BigDecimal MINUTES_PER_HOUR = BigDecimal.valueOf(60);
+
+    private final LabourRepository labourRepository;
+    private final PayrollRollupService payrollRollup;
+
+    private final Path dir;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    private final Timer renderTimer;
+    private final Counter served;
+    private final Counter joined;
+    private final Counter queued;
+
+    public PayslipService(LabourRepository labourRepository,
+                          PayrollRollupService payrollRollup,
+                          MeterRegistry meterRegistry,
+                          @Value("${payslip.dir:./payslips}") String dir,
+                          @Value("${payslip.workers:2}") int workers,
+                          @Value("${payslip.queue-capacity:1000}") int queueCapacity) {
+        this.labourRepository = labourRepository;
+        this.payrollRollup = payrollRollup;
+        this.dir = Paths.get(dir);
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "payslip-render");
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        this.renderTimer = Timer.builder("payslip.render")
+                .description("time to render and store one payslip").register(meterRegistry);
+        this.served = Counter.builder("payslip.requests").tag("result", "file")
+                .description("payslip requests answered from the file store").register(meterRegistry);
+        this.joined = Counter.builder("payslip.requests").tag("result", "joined")
+                .description("payslip requests that joined a render already in flight").register(meterRegistry);
+        this.queued = Counter.builder("payslip.requests").tag("result", "queued")
+                .description("payslip requests that queued a new render").register(meterRegistry);
+        Gauge.builder("payslip.queue.depth", this.workers, w -> w.getQueue().size())
+                .description("payslip renders waiting for a worker").register(meterRegistry);
+        Gauge.builder("payslip.in.flight", inFlight, Map::size)
+                .description("labour-months queued or rendering").register(meterRegistry);
+    }
+
+    // ----------------------------------------------------------------------
+    // REQUEST: file on disk if current, else join or queue a render
+    // ----------------------------------------------------------------------
+    public PayslipStatusDto request(Long labourId, YearMonth month) {
+        if (isCurrent(labourId, month)) {
+            served.increment();
+            return status(labourId, month, PayslipStatusDto.READY);
+        }
+
+        if (!labourRepository.existsById(labourId)) {
+            throw new RuntimeException("Labour not found");
+        }
+
+        String key = labourId + ":" + month;
+        boolean[] created = new boolean[1];
+        CompletableFuture<Path> render;
+        try {
+            render = inFlight.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return CompletableFuture.supplyAsync(() -> render(labourId, month), workers);
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Payslip queue is full, please retry");
+        }
+
+        if (created[0]) {
+            queued.increment();
+            render.whenComplete((path, error) -> {
+                inFlight.remove(key, render);
+                if (error != null) {
+                    log.error("Payslip render failed for labour {} month {}", labourId, month, error);
+                }
+            });
+        } else {
+            joined.increment();
+        }
+        return status(labourId, month, render.isDone() && !render.isCompletedExceptionally()
+                ? PayslipStatusDto.READY : PayslipStatusDto.PENDING);
+    }
+
+    /** The stored payslip, or null if it has not been rendered yet. */
+    public Path getFile(Long labourId, YearMonth month) {
+        Path file = file(labourId, month);
+        return Files.exists(file) ? file : null;
+    }
+
+    // ----------------------------------------------------------------------
+    // INTERNALS
+    // ----------------------------------------------------------------------
+
+    // Current = rendered from the rollup row as it is now
+    private boolean isCurrent(Long labourId, YearMonth month) {
+        Path file = file(labourId, month);
+        Path sidecar = versionFile(labourId, month);
+        if (!Files.exists(file) || !Files.exists(sidecar)) {
+            return false;
+        }
+        PayrollMonthSummary row = payrollRollup.getMonth(labourId, month);
+        try {
+            return version(row).equals(Files.readString(sidecar, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String version(PayrollMonthSummary row) {
+        return row.getUpdatedAt() + "|" + row.getDaysWorked() + "|" + row.getLeaveDays()
+                + "|" + row.getWorkedMinutes() + "|" + row.getOvertimeMinutes()
+                + "|" + row.getDailyRate() + "|" + row.getAmount();
+    }
+
+    private Path render(Long labourId, YearMonth month) {
+        return renderTimer.record(() -> {
+            Labour labour = labourRepository.findById(labourId)
+                    .orElseThrow(() -> new RuntimeException("Labour not found"));
+            PayrollMonthSummary row = payrollRollup.getMonth(labourId, month);
+            Path target = file(labourId, month);
+            Path tmp = null;
+            try {
+                Files.createDirectories(dir);
+                tmp = Files.createTempFile(dir, "payslip-", ".tmp");
+                try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    writeHtml(out, labour, month, row);
+                }
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                tmp = Files.createTempFile(dir, "payslip-", ".tmp");
+                Files.writeString(tmp, version(row), StandardCharsets.UTF_8);
+                Files.move(tmp, versionFile(labourId, month),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return target;
+            } catch (IOException e) {
+                deleteQuietly(tmp);
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void deleteQuietly(Path tmp) {
+        if (tmp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tmp);
+        } catch (IOException ignored) {
+            // Left for the next cleanup of the payslip directory
+        }
+    }
+
+    private static void writeHtml(Writer out, Labour labour, YearMonth month, PayrollMonthSummary row)
+            throws IOException {
+        out.write("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\">");
+        out.write("<title>Payslip " + month + "</title></head><body>\n");
+        out.write("<h2>Payslip - " + month + "</h2>\n");
+        out.write("<p>" + HtmlUtils.htmlEscape(labour.getName()) + " (Labour #" + labour.getId() + ")</p>\n");
+        out.write("<table border=\"1\" cellpadding=\"6\" cellspacing=\"0\">\n");
+        line(out, "Days worked", String.valueOf(row.getDaysWorked()));
+        line(out, "Leave days", String.valueOf(row.getLeaveDays()));
+        line(out, "Hours worked", hours(row.getWorkedMinutes()).toPlainString());
+        line(out, "Overtime hours", hours(row.getOvertimeMinutes()).toPlainString());
+        line(out, "Daily rate", row.getDailyRate().toPlainString());
+        line(out, "Amount", row.getAmount().toPlainString());
+        out.write("</table>\n");
+        out.write("<p><small>Generated " + LocalDateTime.now().withNano(0) + "</small></p>\n");
+        out.write("</body></html>\n");
+    }
+
+    private static void line(Writer out, String label, String value) throws IOException {
+        out.write("<tr><th align=\"left\">" + label + "</th><td align=\"right\">" + value + "</td></tr>\n");
+    }
+
+    private static BigDecimal hours(long minutes) {
+        return BigDecimal.valueOf(minutes).divide(MINUTES_PER_HOUR, 2, RoundingMode.HALF_UP);
+    }
+
+    private Path file(Long labourId, YearMonth month) {
+        return dir.resolve("payslip-" + labourId + "-" + month + ".html");
+    }
+
+    private Path versionFile(Long labourId, YearMonth month) {
+        return dir.resolve("payslip-" + labourId + "-" + month + ".version");
+    }
+
+    private static PayslipStatusDto status(Long labourId, YearMonth month, String status) {
+        return new PayslipStatusDto(labourId, month.toString(), status,
+                "/api/labour/" + labourId + "/payslips/" + month + "/file");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Unfinished renders leave no file behind and are re-queued on the next request
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,142 @@
+package com.hazari.service;
+
+import com.hazari.entity.RefreshToken;
+import com.hazari.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque, rotating refresh tokens. Only the SHA-256 hash is stored.
+ *
+ * A refresh atomically revokes the presented token and issues the next one
+ * in its family. Presenting a token that was already used means it was
+ * copied, so the whole family is revoked and the device has to log in again.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final long expirationMs;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${jwt.refresh-expiration-ms:2592000000}") long expirationMs) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.expirationMs = expirationMs;
+    }
+
+    /** Result of a refresh: whose token it was and the replacement. */
+    public static final class Rotation {
+        private final Long userId;
+        private final String refreshToken;
+
+        Rotation(Long userId, String refreshToken) {
+            this.userId = userId;
+            this.refreshToken = refreshToken;
+        }
+
+        public Long getUserId() { return userId; }
+        public String getRefreshToken() { return refreshToken; }
+    }
+
+    // ====================================
+    // ✅ ISSUE (login: new family)
+    // ====================================
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    // ====================================
+    // ✅ ROTATE (POST /api/auth/refresh)
+    // ====================================
+    public Rotation rotate(String presented) {
+        RefreshToken token = find(presented);
+        LocalDateTime now = LocalDateTime.now();
+        if (token.getRevokedAt() != null || refreshTokenRepository.revokeIfActive(token.getId(), now) == 0) {
+            // Already used: whoever holds the newer token may not be the owner
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            log.warn("Refresh token reuse for user {}, family revoked", token.getUserId());
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token already used, please log in again");
+        }
+        if (token.getExpiresAt().isBefore(now)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token expired, please log in again");
+        }
+        return new Rotation(token.getUserId(), issue(token.getUserId(), token.getFamilyId()));
+    }
+
+    // ====================================
+    // ✅ REVOKE (logout / password reset)
+    // ====================================
+    public void revokeFamily(String presented) {
+        if (presented == null || presented.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHash(hash(presented))
+                .ifPresent(t -> refreshTokenRepository.revokeFamily(t.getFamilyId(), LocalDateTime.now()));
+    }
+
+    public void revokeAllForUser(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now());
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired refresh tokens", deleted);
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // INTERNALS
+    // ----------------------------------------------------------------------
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(value));
+        token.setUserId(userId);
+        token.setFamilyId(familyId);
+        token.setCreatedAt(now);
+        token.setExpiresAt(now.plus(Duration.ofMillis(expirationMs)));
+        refreshTokenRepository.save(token);
+        return value;
+    }
+
+    private RefreshToken find(String presented) {
+        if (presented == null || presented.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token is required");
+        }
+        return refreshTokenRepository.findByTokenHash(hash(presented))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token"));
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.hazari.service;
+
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.dto.ShiftRuleDto;
+import com.hazari.entity.ShiftRule;
+import com.hazari.repository.LabourRepository;
+import com.hazari.repository.ShiftRuleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the shift rule for each attendance write.
+ *
+ * labour -> contractor and contractor -> rule are cached in memory; a batch
+ * of events costs at most one labour query and one rule query for ids not
+ * seen before, and nothing once warm. Rules changed through saveRule are
+ * picked up immediately.
+ *
+ * Labour rows are edited outside this service, so a labour's contractor is
+ * reloaded after labour-ttl-ms. Labour ids that do not exist are not cached.
+ */
+@Service
+public class ShiftRuleService {
+
+    // Stands for labours without a contractor (and unknown labours)
+    private static final Long NO_CONTRACTOR = -1L;
+
+    private final ShiftRuleRepository shiftRuleRepository;
+    private final LabourRepository labourRepository;
+    private final long labourTtlMs;
+
+    private final Map<Long, LabourContractor> contractorByLabour = new ConcurrentHashMap<>();
+    private final Map<Long, ShiftRule> ruleByContractor = new ConcurrentHashMap<>();
+
+    public ShiftRuleService(ShiftRuleRepository shiftRuleRepository,
+                            LabourRepository labourRepository,
+                            @Value("${attendance.shift.labour-ttl-ms:600000}") long labourTtlMs) {
+        this.shiftRuleRepository = shiftRuleRepository;
+        this.labourRepository = labourRepository;
+        this.labourTtlMs = labourTtlMs;
+    }
+
+    // ----------------------------------------------------------------------
+    // WRITE PATH: stamp each event with its rule
+    // ----------------------------------------------------------------------
+    public void apply(AttendanceEvent event) {
+        apply(List.of(event));
+    }
+
+    public void apply(Collection<AttendanceEvent> events) {
+        long now = System.currentTimeMillis();
+        Map<Long, Long> contractors = new HashMap<>();
+        Set<Long> unknownLabours = new HashSet<>();
+        for (AttendanceEvent event : events) {
+            LabourContractor cached = contractorByLabour.get(event.getLabourId());
+            if (cached != null && now - cached.loadedAt < labourTtlMs) {
+                contractors.put(event.getLabourId(), cached.contractorId);
+            } else {
+                unknownLabours.add(event.getLabourId());
+            }
+        }
+        if (!unknownLabours.isEmpty()) {
+            for (Object[] row : labourRepository.findContractorIdsByIds(unknownLabours)) {
+                Long contractorId = row[1] != null ? (Long) row[1] : NO_CONTRACTOR;
+                contractorByLabour.put((Long) row[0], new LabourContractor(contractorId, now));
+                contractors.put((Long) row[0], contractorId);
+                unknownLabours.remove((Long) row[0]);
+            }
+            // Unknown ids: the write itself will fail or be rejected, defaults are fine.
+            // Not cached, so a labour row added later gets its contractor's rule.
+            unknownLabours.forEach(id -> contractors.put(id, NO_CONTRACTOR));
+        }
+
+        Set<Long> unknownContractors = new HashSet<>();
+        for (AttendanceEvent event : events) {
+            Long contractorId = contractors.get(event.getLabourId());
+            if (!ruleByContractor.containsKey(contractorId)) {
+                unknownContractors.add(contractorId);
+            }
+        }
+        if (!unknownContractors.isEmpty()) {
+            for (ShiftRule rule : shiftRuleRepository.findByContractorIdIn(unknownContractors)) {
+                ruleByContractor.put(rule.getContractorId(), rule);
+                unknownContractors.remove(rule.getContractorId());
+            }
+            unknownContractors.forEach(id -> ruleByContractor.put(id, defaults(id)));
+        }
+
+        for (AttendanceEvent event : events) {
+            event.setShift(ruleByContractor.get(contractors.get(event.getLabourId())));
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // RULE MAINTENANCE
+    // ----------------------------------------------------------------------
+    public ShiftRule getRule(Long contractorId) {
+        return shiftRuleRepository.findByContractorId(contractorId).orElseGet(() -> defaults(contractorId));
+    }
+
+    public ShiftRule saveRule(Long contractorId, ShiftRuleDto dto) {
+        ShiftRule rule = shiftRuleRepository.findByContractorId(contractorId).orElseGet(() -> defaults(contractorId));
+        if (dto.getShiftStart() != null) {
+            try {
+                rule.setShiftStart(LocalTime.parse(dto.getShiftStart()));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("shiftStart must be HH:mm");
+            }
+        }
+        if (dto.getRegularMinutes() != null) {
+            rule.setRegularMinutes(minutes("regularMinutes", dto.getRegularMinutes()));
+        }
+        if (dto.getLateGraceMinutes() != null) {
+            rule.setLateGraceMinutes(minutes("lateGraceMinutes", dto.getLateGraceMinutes()));
+        }
+        if (dto.getBreakMinutes() != null) {
+            rule.setBreakMinutes(minutes("breakMinutes", dto.getBreakMinutes()));
+        }
+        rule.setUpdatedAt(LocalDateTime.now());
+        ShiftRule saved = shiftRuleRepository.save(rule);
+        ruleByContractor.put(contractorId, saved);
+        return saved;
+    }
+
+    private static int minutes(String name, int value) {
+        if (value < 0 || value > 24 * 60) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1440");
+        }
+        return value;
+    }
+
+    private static final class LabourContractor {
+        final Long contractorId;
+        final long loadedAt;
+
+        LabourContractor(Long contractorId, long loadedAt) {
+            this.contractorId = contractorId;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static ShiftRule defaults(Long contractorId) {
+        ShiftRule rule = new ShiftRule();
+        rule.setContractorId(NO_CONTRACTOR.equals(contractorId) ? null : contractorId);
+        return rule;
+    }
+}
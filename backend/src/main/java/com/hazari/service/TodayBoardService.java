@@ -0,0 +1,389 @@
+package com.hazari.service;
+
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.dto.TodayAttendanceDto;
+import com.hazari.repository.AttendanceRepository;
+import com.hazari.repository.LabourRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory "today board": today's attendance rows per contractor, kept up to
+ * date by the check-in / check-out paths so the dashboard endpoints never hit
+ * MySQL. Rebuilt from the database on startup and cleared at local midnight.
+ * Loading a board is one joined, name-sorted query (no per-labour lookups).
+ *
+ * Each board caches its sorted list and only re-sorts after a change, so a read
+ * between changes is a plain reference return.
+ *
+ * Writes made by this instance update the board at once. Every sync-ms the
+ * day's rows changed since the last sync (attendance.updated_at, set by
+ * MySQL) are read back and applied, so writes made by other instances, or
+ * by any path that skipped the hooks, reach every board within sync-ms.
+ * Each read reaches sync-overlap-ms further back than the newest change
+ * already seen, so a transaction that commits late is not missed; rows are
+ * complete, so reading one twice is harmless and only real changes are
+ * published to the live stream.
+ *
+ * Labour names and contractors are cached for labour-ttl-ms: labour rows are
+ * edited outside this service, so an edit shows up on the board within the
+ * TTL. Unknown labour ids are not cached.
+ */
+@Service
+public class TodayBoardService {
+
+    private final AttendanceRepository attendanceRepository;
+    private final LabourRepository labourRepository;
+    private final AttendanceStreamService attendanceStream;
+    private final LabourStatusCache labourStatusCache;
+
+    // labourId -> name + contractor, filled lazily, reloaded after labourTtlMs
+    private final Map<Long, LabourRef> labours = new ConcurrentHashMap<>();
+    private final long labourTtlMs;
+    private final Duration syncOverlap;
+
+    private volatile Day today = new Day(LocalDate.now(), true);
+
+    public TodayBoardService(AttendanceRepository attendanceRepository,
+                             LabourRepository labourRepository,
+                             AttendanceStreamService attendanceStream,
+                             LabourStatusCache labourStatusCache,
+                             @Value("${attendance.today-board.labour-ttl-ms:600000}") long labourTtlMs,
+                             @Value("${attendance.today-board.sync-overlap-ms:10000}") long syncOverlapMs) {
+        this.attendanceRepository = attendanceRepository;
+        this.labourRepository = labourRepository;
+        this.attendanceStream = attendanceStream;
+        this.labourStatusCache = labourStatusCache;
+        this.labourTtlMs = labourTtlMs;
+        this.syncOverlap = Duration.ofMillis(syncOverlapMs);
+    }
+
+    // ----------------------------------------------------------------------
+    // READS
+    // ----------------------------------------------------------------------
+    public List<TodayAttendanceDto> getAll() {
+        Day day = currentDay();
+        return day.all(attendanceRepository).sorted();
+    }
+
+    public List<TodayAttendanceDto> getForContractor(Long contractorId) {
+        Day day = currentDay();
+        day.all(attendanceRepository);
+        Board board = day.byContractor.computeIfAbsent(contractorId, k -> new Board(!day.fromDatabase));
+        board.ensureLoaded(() -> attendanceRepository.findTodayRowsForContractor(day.date, contractorId));
+        return board.sorted();
+    }
+
+    // ----------------------------------------------------------------------
+    // WRITES (called after the row is in the database; also keep the
+    // per-labour status cache in step)
+    // ----------------------------------------------------------------------
+    public void onCheckIn(AttendanceEvent event) {
+        labourStatusCache.onCheckIn(event);
+        Day day = dayFor(event.getDate());
+        if (day == null) {
+            return;
+        }
+        LabourRef labour = labour(event.getLabourId());
+        TodayAttendanceDto row = day.update(attendanceRepository, labour, old -> new TodayAttendanceDto(
+                labour.id,
+                labour.name,
+                old != null ? old.getStatus() : "PRESENT",
+                event.getTime().toString(),
+                old != null ? old.getCheckOut() : null));
+        attendanceStream.publish(labour.contractorId, AttendanceStreamService.CHECK_IN, row);
+    }
+
+    public void onCheckOut(AttendanceEvent event) {
+        labourStatusCache.onCheckOut(event);
+        Day day = dayFor(event.getDate());
+        if (day == null) {
+            return;
+        }
+        LabourRef labour = labour(event.getLabourId());
+        TodayAttendanceDto row = day.update(attendanceRepository, labour, old -> new TodayAttendanceDto(
+                labour.id,
+                labour.name,
+                old != null ? old.getStatus() : "PRESENT",
+                old != null ? old.getCheckIn() : null,
+                event.getTime().toString()));
+        attendanceStream.publish(labour.contractorId, AttendanceStreamService.CHECK_OUT, row);
+    }
+
+    // Offline sync: the earliest check-in and latest check-out win, same as the database merge
+    public void onSyncedCheckIn(AttendanceEvent event) {
+        labourStatusCache.onSyncedWrite(event);
+        Day day = dayFor(event.getDate());
+        if (day == null) {
+            return;
+        }
+        LabourRef labour = labour(event.getLabourId());
+        TodayAttendanceDto row = day.update(attendanceRepository, labour, old -> {
+            if (old != null && old.getCheckIn() != null
+                    && !event.getTime().isBefore(LocalDateTime.parse(old.getCheckIn()))) {
+                return old;
+            }
+            return new TodayAttendanceDto(
+                    labour.id,
+                    labour.name,
+                    old != null ? old.getStatus() : "PRESENT",
+                    event.getTime().toString(),
+                    old != null ? old.getCheckOut() : null);
+        });
+        attendanceStream.publish(labour.contractorId, AttendanceStreamService.CHECK_IN, row);
+    }
+
+    public void onSyncedCheckOut(AttendanceEvent event) {
+        labourStatusCache.onSyncedWrite(event);
+        Day day = dayFor(event.getDate());
+        if (day == null) {
+            return;
+        }
+        LabourRef labour = labour(event.getLabourId());
+        TodayAttendanceDto row = day.update(attendanceRepository, labour, old -> {
+            if (old != null && old.getCheckOut() != null
+                    && !event.getTime().isAfter(LocalDateTime.parse(old.getCheckOut()))) {
+                return old;
+            }
+            return new TodayAttendanceDto(
+                    labour.id,
+                    labour.name,
+                    old != null ? old.getStatus() : "PRESENT",
+                    old != null ? old.getCheckIn() : null,
+                    event.getTime().toString());
+        });
+        attendanceStream.publish(labour.contractorId, AttendanceStreamService.CHECK_OUT, row);
+    }
+
+    // ----------------------------------------------------------------------
+    // SYNC: rows written by other instances
+    // ----------------------------------------------------------------------
+    @Scheduled(fixedDelayString = "${attendance.today-board.sync-ms:5000}")
+    public void syncFromDatabase() {
+        Day day = currentDay();
+        Board all = day.all(attendanceRepository);
+        LocalDateTime seen = day.syncedUpTo;
+        // First sync of the day reads the whole day once
+        LocalDateTime since = seen != null ? seen.minus(syncOverlap) : day.date.atStartOfDay().minusSeconds(1);
+        LocalDateTime newest = seen;
+        for (Object[] r : attendanceRepository.findDayRowsChangedSince(day.date, since)) {
+            LocalDateTime updatedAt = (LocalDateTime) r[4];
+            if (newest == null || updatedAt.isAfter(newest)) {
+                newest = updatedAt;
+            }
+            Long labourId = (Long) r[0];
+            String status = (String) r[1];
+            String checkIn = r[2] != null ? r[2].toString() : null;
+            String checkOut = r[3] != null ? r[3].toString() : null;
+            if (same(all.get(labourId), status, checkIn, checkOut)) {
+                continue;
+            }
+            LabourRef labour = labour(labourId);
+            TodayAttendanceDto row = day.update(attendanceRepository, labour,
+                    old -> new TodayAttendanceDto(labour.id, labour.name, status, checkIn, checkOut));
+            labourStatusCache.onExternalWrite(labourId, day.date);
+            attendanceStream.publish(labour.contractorId,
+                    checkOut != null ? AttendanceStreamService.CHECK_OUT : AttendanceStreamService.CHECK_IN, row);
+        }
+        day.syncedUpTo = newest;
+    }
+
+    private static boolean same(TodayAttendanceDto row, String status, String checkIn, String checkOut) {
+        return row != null
+                && Objects.equals(row.getStatus(), status)
+                && Objects.equals(row.getCheckIn(), checkIn)
+                && Objects.equals(row.getCheckOut(), checkOut);
+    }
+
+    // ----------------------------------------------------------------------
+    // STARTUP REBUILD + MIDNIGHT ROLLOVER
+    // ----------------------------------------------------------------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        currentDay().all(attendanceRepository);
+    }
+
+    @Scheduled(cron = "0 0 0 * * *")
+    public void rollover() {
+        currentDay();
+    }
+
+    // ----------------------------------------------------------------------
+    // INTERNALS
+    // ----------------------------------------------------------------------
+    private Day currentDay() {
+        Day day = today;
+        LocalDate now = LocalDate.now();
+        if (!day.date.equals(now)) {
+            synchronized (this) {
+                if (!today.date.equals(now)) {
+                    // A new day starts empty, nothing to load
+                    today = new Day(now, false);
+                }
+                day = today;
+            }
+        }
+        return day;
+    }
+
+    /** Board for the event's date, or null if the event is not for today. */
+    private Day dayFor(LocalDate date) {
+        Day day = currentDay();
+        return day.date.equals(date) ? day : null;
+    }
+
+    private LabourRef labour(Long labourId) {
+        long now = System.currentTimeMillis();
+        LabourRef ref = labours.get(labourId);
+        if (ref != null && now - ref.loadedAt < labourTtlMs) {
+            return ref;
+        }
+        return labourRepository.findById(labourId)
+                .map(l -> {
+                    LabourRef loaded = new LabourRef(l.getId(), l.getName(), l.getContractorId(), now);
+                    labours.put(labourId, loaded);
+                    return loaded;
+                })
+                // Not cached, so a labour row added later is picked up
+                .orElseGet(() -> new LabourRef(labourId, null, null, now));
+    }
+
+    private static final class LabourRef {
+        final Long id;
+        final String name;
+        final Long contractorId;
+        final long loadedAt;
+
+        LabourRef(Long id, String name, Long contractorId, long loadedAt) {
+            this.id = id;
+            this.name = name != null ? name : "Labour #" + id;
+            this.contractorId = contractorId;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private interface RowUpdate {
+        TodayAttendanceDto apply(TodayAttendanceDto old);
+    }
+
+    /**
+     * Everything for one calendar day. Replaced wholesale at midnight.
+     * The day the application starts on is loaded from the database lazily,
+     * one board at a time; later days start empty.
+     */
+    private static final class Day {
+        final LocalDate date;
+        final boolean fromDatabase;
+        final Board all;
+        final Map<Long, Board> byContractor = new ConcurrentHashMap<>();
+        // Newest attendance.updated_at applied by syncFromDatabase, null before the first sync
+        volatile LocalDateTime syncedUpTo;
+
+        Day(LocalDate date, boolean fromDatabase) {
+            this.date = date;
+            this.fromDatabase = fromDatabase;
+            this.all = new Board(!fromDatabase);
+        }
+
+        Board all(AttendanceRepository attendanceRepository) {
+            all.ensureLoaded(() -> attendanceRepository.findTodayRows(date));
+            return all;
+        }
+
+        TodayAttendanceDto update(AttendanceRepository attendanceRepository,
+                                  LabourRef labour, RowUpdate update) {
+            // The "all" board holds the previous row, so it must be complete first
+            Board allBoard = all(attendanceRepository);
+
+            // A contractor board not created yet will read this row when it loads
+            Board contractorBoard = null;
+            if (labour.contractorId != null) {
+                contractorBoard = fromDatabase
+                        ? byContractor.get(labour.contractorId)
+                        : byContractor.computeIfAbsent(labour.contractorId, k -> new Board(true));
+            }
+
+            // Mirror inside the compute so both boards see updates in the same order
+            Board mirror = contractorBoard;
+            return allBoard.update(labour.id, old -> {
+                TodayAttendanceDto row = update.apply(old);
+                if (mirror != null) {
+                    mirror.put(labour.id, row);
+                }
+                return row;
+            });
+        }
+    }
+
+    /** One board's rows, with a lazily re-sorted read snapshot. */
+    private static final class Board {
+        private final Map<Long, TodayAttendanceDto> rows = new ConcurrentHashMap<>();
+        private volatile List<TodayAttendanceDto> sorted = Collections.emptyList();
+        private volatile boolean dirty;
+        private volatile boolean loaded;
+
+        Board(boolean loaded) {
+            this.loaded = loaded;
+        }
+
+        /** Rows already here were written after the query started, so they win. */
+        void ensureLoaded(Supplier<List<TodayAttendanceDto>> loader) {
+            if (loaded) {
+                return;
+            }
+            synchronized (this) {
+                if (!loaded) {
+                    for (TodayAttendanceDto row : loader.get()) {
+                        rows.putIfAbsent(row.getLabourId(), row);
+                    }
+                    loaded = true;
+                    dirty = true;
+                }
+            }
+        }
+
+        TodayAttendanceDto get(Long labourId) {
+            return rows.get(labourId);
+        }
+
+        TodayAttendanceDto update(Long labourId, RowUpdate update) {
+            TodayAttendanceDto row = rows.compute(labourId, (id, old) -> update.apply(old));
+            dirty = true;
+            return row;
+        }
+
+        void put(Long labourId, TodayAttendanceDto row) {
+            rows.put(labourId, row);
+            dirty = true;
+        }
+
+        List<TodayAttendanceDto> sorted() {
+            if (dirty) {
+                synchronized (this) {
+                    if (dirty) {
+                        dirty = false;
+                        List<TodayAttendanceDto> list = new ArrayList<>(rows.values());
+                        list.sort(Comparator.comparing(TodayAttendanceDto::getLabourName));
+                        sorted = Collections.unmodifiableList(list);
+                    }
+                }
+            }
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.hazari.service;
+
+import com.hazari.config.JwtUtil;
+import com.hazari.entity.RevokedToken;
+import com.hazari.repository.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revoked access tokens (by jti), checked on every authenticated request
+ * without a database read.
+ *
+ * Revocations live in revoked_tokens and, in memory, in one Bloom filter per
+ * expiry bucket (bucket width = access token lifetime), so at most two
+ * buckets are live and a whole bucket is dropped once its tokens have
+ * expired. A token whose bucket says "not present" is accepted straight
+ * away; a Bloom hit is confirmed with a primary key lookup, so a false
+ * positive costs one query and never rejects a valid token.
+ *
+ * Revocations made on other instances are picked up by the periodic reload.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final int HASHES = 7;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long bucketMs;
+    private final int bloomBits;
+
+    private final Map<Long, Bloom> buckets = new ConcurrentHashMap<>();
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  JwtUtil jwtUtil,
+                                  @Value("${jwt.revocation.bloom-bits:1048576}") int bloomBits) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.bucketMs = Math.max(jwtUtil.getExpirationMs(), 60_000L);
+        this.bloomBits = bloomBits;
+    }
+
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null || expiresAt.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(jti,
+                LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault())));
+        add(jti, expiresAt.getTime());
+    }
+
+    public boolean isRevoked(String jti, Date expiresAt) {
+        if (jti == null) {
+            return false;
+        }
+        Bloom bloom = buckets.get(expiresAt.getTime() / bucketMs);
+        if (bloom == null || !bloom.mightContain(jti)) {
+            return false;
+        }
+        return revokedTokenRepository.existsById(jti);
+    }
+
+    // ----------------------------------------------------------------------
+    // RELOAD + PURGE (startup, then every refresh-ms)
+    // ----------------------------------------------------------------------
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-ms:30000}",
+            initialDelayString = "${jwt.revocation.refresh-ms:30000}")
+    public void reload() {
+        long now = System.currentTimeMillis();
+        LocalDateTime nowTime = LocalDateTime.now();
+        for (RevokedToken row : revokedTokenRepository.findByExpiresAtAfter(nowTime)) {
+            add(row.getJti(), row.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        buckets.keySet().removeIf(bucket -> (bucket + 1) * bucketMs <= now);
+        revokedTokenRepository.deleteExpired(nowTime);
+    }
+
+    private void add(String jti, long expiresAtMs) {
+        buckets.computeIfAbsent(expiresAtMs / bucketMs, k -> new Bloom(bloomBits)).put(jti);
+    }
+
+    /** Fixed-size Bloom filter, safe for concurrent put / mightContain. */
+    private static final class Bloom {
+        private final AtomicLongArray words;
+        private final long bits;
+
+        Bloom(int bits) {
+            this.words = new AtomicLongArray((bits + 63) / 64);
+            this.bits = (long) words.length() * 64;
+        }
+
+        void put(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = words.get(word);
+                } while ((old & mask) == 0 && !words.compareAndSet(word, old, old | mask));
+            }
+        }
+
+        boolean mightContain(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 64-bit FNV-1a
+        private static long hash(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return h;
+        }
+
+        // SplitMix64 finalizer, odd so the probe sequence covers the table
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return (z ^ (z >>> 31)) | 1L;
+        }
+    }
+}
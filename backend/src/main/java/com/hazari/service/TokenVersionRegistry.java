@@ -0,0 +1,49 @@
+package com.hazari.service;
+
+import com.hazari.repository.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Current token version per user, so request authentication can reject
+ * revoked tokens without reading the users table.
+ *
+ * Only users whose version was ever bumped are held (absent = 0), which
+ * keeps the map small. Versions only go up, so reloads merge with max and
+ * never undo a bump made on this instance; the periodic reload picks up
+ * bumps made by other instances.
+ */
+@Service
+public class TokenVersionRegistry {
+
+    private final UserRepository userRepository;
+
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    public TokenVersionRegistry(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public boolean isCurrent(Long userId, int version) {
+        return version >= versions.getOrDefault(userId, 0);
+    }
+
+    /** Called after the new version is committed. */
+    public void onBumped(Long userId, int version) {
+        versions.merge(userId, version, Math::max);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.token-version.refresh-ms:30000}",
+            initialDelayString = "${auth.token-version.refresh-ms:30000}")
+    public void reload() {
+        for (Object[] row : userRepository.findRevokedTokenVersions()) {
+            versions.merge(((Number) row[0]).longValue(), ((Number) row[1]).intValue(), Math::max);
+        }
+    }
+}
@@ -2,24 +2,171 @@ package com.hazari.service;
 
 import com.hazari.entity.User;
 import com.hazari.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads users for login and for tokens without identity claims, through a
+ * bounded, TTL-evicting read-through cache keyed by username.
+ *
+ * The cache is an access-ordered map, so the least recently used user goes
+ * first when it is full. Writes to a user call evict(); a load that overlaps
+ * an eviction is returned but not cached, so it cannot put the old row back.
+ *
+ * evict() only reaches this instance's cache. A password reset on another
+ * instance bumps the user's token version, which TokenVersionRegistry picks
+ * up within auth.token-version.refresh-ms; a hit whose version is behind the
+ * registry is dropped and reloaded, so the old password stops working here
+ * within that delay rather than ttl-ms. Other changes made elsewhere (e.g. a
+ * labour link) show up after ttl-ms.
+ *
+ * A load is one joined query that also fills User.labourId.
+ *
+ * Also the UserDetailsPasswordService: when a login succeeds with a hash
+ * whose BCrypt cost differs from the configured one, the password is
+ * rehashed and stored.
+ *
+ * Metrics: user.details.cache{result=hit|miss},
+ * user.details.cache.evictions{cause=size|expired|invalidated},
+ * user.details.cache.size.
+ */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
-    
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+
     private final UserRepository userRepository;
-    
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    private final TokenVersionRegistry tokenVersions;
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final Map<String, Entry> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter invalidatedEvictions;
+
+    public UserDetailsServiceImpl(UserRepository userRepository,
+                                  TokenVersionRegistry tokenVersions,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${auth.user-cache.max-size:20000}") int maxSize,
+                                  @Value("${auth.user-cache.ttl-ms:600000}") long ttlMs) {
         this.userRepository = userRepository;
+        this.tokenVersions = tokenVersions;
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > UserDetailsServiceImpl.this.maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("user.details.cache").tag("result", "hit")
+                .description("user lookups served from memory").register(meterRegistry);
+        this.misses = Counter.builder("user.details.cache").tag("result", "miss")
+                .description("user lookups that went to the database").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("user.details.cache.evictions").tag("cause", "size")
+                .description("users dropped to stay under max-size").register(meterRegistry);
+        this.expiredEvictions = Counter.builder("user.details.cache.evictions").tag("cause", "expired")
+                .description("users dropped after ttl-ms").register(meterRegistry);
+        this.invalidatedEvictions = Counter.builder("user.details.cache.evictions").tag("cause", "invalidated")
+                .description("users dropped because they were changed").register(meterRegistry);
+        Gauge.builder("user.details.cache.size", this, s -> s.size())
+                .description("users currently cached").register(meterRegistry);
     }
-    
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-            .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            Entry entry = cache.get(username);
+            if (entry != null) {
+                if (entry.expiresAt <= now) {
+                    cache.remove(username);
+                    expiredEvictions.increment();
+                } else if (!tokenVersions.isCurrent(entry.user.getId(), entry.user.getTokenVersion())) {
+                    // Changed on another instance (password reset): reload
+                    cache.remove(username);
+                    invalidatedEvictions.increment();
+                } else {
+                    hits.increment();
+                    return entry.user;
+                }
+            }
+        }
+        misses.increment();
+
+        long seen = invalidations.get();
+        // The user and its linked labour id together, so login needs no second lookup
+        List<Object[]> rows = userRepository.findWithLabourId(username);
+        if (rows.isEmpty()) {
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
+        User user = (User) rows.get(0)[0];
+        user.setLabourId((Long) rows.get(0)[1]);
+        synchronized (cache) {
+            if (invalidations.get() == seen) {
+                cache.put(username, new Entry(user, now + ttlMs));
+            }
+        }
         return user;
     }
+
+    // Rehash on login (called by DaoAuthenticationProvider with the new hash)
+    @Override
+    public UserDetails updatePassword(UserDetails details, String newPassword) {
+        User user = userRepository.findByUsername(details.getUsername())
+            .orElseThrow(() -> new UsernameNotFoundException("User not found: " + details.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        if (details instanceof User) {
+            user.setLabourId(((User) details).getLabourId());
+        }
+        evict(user.getUsername());
+        return user;
+    }
+
+    /** Call after a user row is created or changed. */
+    public void evict(String username) {
+        synchronized (cache) {
+            invalidations.incrementAndGet();
+            if (cache.remove(username) != null) {
+                invalidatedEvictions.increment();
+            }
+        }
+    }
+
+    private int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static final class Entry {
+        final User user;
+        final long expiresAt;
+
+        Entry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package com.hazari;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+/**
+ * Base class for tests that need the real SQL dialect: ON DUPLICATE KEY
+ * UPDATE, INSERT IGNORE, FOR UPDATE and row locking behave as on MySQL, which
+ * an in-memory database would not reproduce.
+ *
+ * One embedded MariaDB is started per JVM on a free port and shared by every
+ * test class; Hibernate creates the schema from the entities as in production
+ * (ddl-auto: update). Tests clean up the tables they use.
+ */
+public abstract class EmbeddedMariaDb {
+
+    private static final String DATABASE = "hazari_test";
+
+    private static String url;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", EmbeddedMariaDb::url);
+        registry.add("spring.datasource.username", () -> "root");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    static synchronized String url() {
+        if (url == null) {
+            try {
+                DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+                config.setPort(0);
+                config.addArg("--user=root");
+                DB db = DB.newEmbeddedDB(config.build());
+                db.start();
+                int port = db.getConfiguration().getPort();
+
+                // Created over JDBC: the bundled command-line client is not usable everywhere
+                try (Connection con = DriverManager.getConnection("jdbc:mysql://localhost:" + port + "/?user=root");
+                     Statement st = con.createStatement()) {
+                    st.execute("CREATE DATABASE IF NOT EXISTS " + DATABASE);
+                }
+                url = "jdbc:mysql://localhost:" + port + "/" + DATABASE
+                        + "?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not start embedded MariaDB", e);
+            }
+        }
+        return url;
+    }
+}
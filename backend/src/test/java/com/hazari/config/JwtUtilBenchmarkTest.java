@@ -0,0 +1,94 @@
+package com.hazari.config;
+
+import com.hazari.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Timed comparison of the per-request token check before and after
+ * parseClaims: the old filter parsed the token three times (username, then
+ * username and expiry again in validateToken), deriving the key and building
+ * a parser each time; now it is verified once with the cached parser.
+ *
+ * Not a JMH harness, just warm-up then a timed loop, so the numbers are
+ * rough and only the ordering is checked. Takes seconds and depends on the
+ * machine, so it is tagged out of mvn test; run it with mvn test -Pbenchmark.
+ * JwtUtilTest covers the behaviour.
+ */
+@Tag("benchmark")
+class JwtUtilBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtUtilBenchmarkTest.class);
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+    private static final int WARMUP = 5_000;
+    private static final int ROUNDS = 20_000;
+
+    @Test
+    void singleParseBeatsThreeParses() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expirationMs", 900_000L);
+        jwtUtil.init();
+
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("ramesh");
+        user.setRole("LABOUR");
+        user.setTokenVersion(0);
+        String token = jwtUtil.generateToken(user, 7L);
+
+        for (int i = 0; i < WARMUP; i++) {
+            threeParses(token, user);
+            singleParse(jwtUtil, token, user);
+        }
+        long oldNanos = time(() -> threeParses(token, user));
+        long newNanos = time(() -> singleParse(jwtUtil, token, user));
+
+        log.info("JWT check per request: three parses {} ns, parseClaims once {} ns",
+                oldNanos / ROUNDS, newNanos / ROUNDS);
+        assertTrue(newNanos < oldNanos, "parseClaims once should be faster than three parses");
+    }
+
+    private static long time(Runnable check) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            check.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // The filter as it was: extractUsername, then validateToken(String, ...)
+    private static void threeParses(String token, User user) {
+        String username = oldParse(token).getSubject();
+        boolean valid = oldParse(token).getSubject().equals(user.getUsername())
+                && !oldParse(token).getExpiration().before(new Date());
+        assertEquals(user.getUsername(), username);
+        assertTrue(valid);
+    }
+
+    private static Claims oldParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static void singleParse(JwtUtil jwtUtil, String token, User user) {
+        Claims claims = jwtUtil.parseClaims(token);
+        assertEquals(user.getUsername(), claims.getSubject());
+        assertTrue(jwtUtil.validateToken(claims, user));
+    }
+}
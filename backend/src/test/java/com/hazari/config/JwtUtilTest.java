@@ -0,0 +1,67 @@
+package com.hazari.config;
+
+import com.hazari.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The per-request token check: parseClaims verifies once and the claims
+ * answer the same questions the three separate parses used to.
+ */
+class JwtUtilTest {
+
+    private static final String SECRET = "unit-test-secret-unit-test-secret-0123456789";
+
+    @Test
+    void parsedClaimsGiveTheSameAnswersAsTheTokenChecks() {
+        JwtUtil jwtUtil = jwtUtil(SECRET, 900_000L);
+        User user = user("ramesh");
+        String token = jwtUtil.generateToken(user, 7L);
+
+        Claims claims = jwtUtil.parseClaims(token);
+
+        assertEquals(jwtUtil.extractUsername(token), claims.getSubject());
+        assertEquals(jwtUtil.extractExpiration(token), claims.getExpiration());
+        assertTrue(jwtUtil.validateToken(claims, user));
+        assertTrue(jwtUtil.validateToken(token, user));
+        assertFalse(jwtUtil.validateToken(claims, user("suresh")));
+        assertEquals(7L, jwtUtil.toPrincipal(claims).getLabourId());
+    }
+
+    @Test
+    void foreignAndExpiredTokensAreRejected() {
+        JwtUtil jwtUtil = jwtUtil(SECRET, 900_000L);
+        User user = user("ramesh");
+
+        String foreign = jwtUtil(SECRET.replace('u', 'x'), 900_000L).generateToken(user, 7L);
+        String expired = jwtUtil(SECRET, -1_000L).generateToken(user, 7L);
+
+        assertThrows(JwtException.class, () -> jwtUtil.parseClaims(foreign));
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseClaims(expired));
+    }
+
+    private static JwtUtil jwtUtil(String secret, long expirationMs) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", secret);
+        ReflectionTestUtils.setField(jwtUtil, "expirationMs", expirationMs);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setId(42L);
+        user.setUsername(username);
+        user.setRole("LABOUR");
+        user.setTokenVersion(0);
+        return user;
+    }
+}
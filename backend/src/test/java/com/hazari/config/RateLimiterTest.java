@@ -0,0 +1,130 @@
+package com.hazari.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    @Test
+    void bucketAllowsTheBurstThenRefusesUntilAnIntervalPasses() throws Exception {
+        // 10 per second = one every 100ms, 3 at once
+        RateLimiter.Buckets buckets = RateLimiter.Buckets.of(limit(10, Duration.ofSeconds(1), 3));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("10.0.0.1"));
+        }
+        long wait = buckets.tryAcquire("10.0.0.1");
+        assertTrue(wait > 0 && wait <= TimeUnit.MILLISECONDS.toNanos(100), "wait " + wait);
+        // Other keys are independent
+        assertEquals(0, buckets.tryAcquire("10.0.0.2"));
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals(0, buckets.tryAcquire("10.0.0.1"));
+        assertTrue(buckets.tryAcquire("10.0.0.1") > 0);
+    }
+
+    @Test
+    void concurrentCallersGetExactlyTheBurst() throws Exception {
+        RateLimiter.Buckets buckets = RateLimiter.Buckets.of(limit(1, Duration.ofHours(1), 20));
+        int callers = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return buckets.tryAcquire("site");
+                }));
+            }
+            start.countDown();
+            int allowed = 0;
+            for (Future<Long> result : results) {
+                if (result.get() == 0) {
+                    allowed++;
+                }
+            }
+            assertEquals(20, allowed);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void releaseGivesTheSlotBack() {
+        RateLimiter.Buckets buckets = RateLimiter.Buckets.of(limit(1, Duration.ofHours(1), 2));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, buckets.tryAcquire("ramesh"));
+            buckets.release("ramesh");
+        }
+        assertEquals(0, buckets.tryAcquire("ramesh"));
+        assertEquals(0, buckets.tryAcquire("ramesh"));
+        assertTrue(buckets.tryAcquire("ramesh") > 0);
+    }
+
+    @Test
+    void loginCountsOnlyFailedAttemptsPerUsername() {
+        RateLimiter limiter = limiter();
+
+        // A crew member logging in again and again is never blocked
+        for (int i = 0; i < 20; i++) {
+            limiter.checkUser("login", "ramesh");
+            limiter.refundUser("login", "ramesh");
+        }
+
+        // Failed attempts (no refund) run out after the burst; case and spaces do not matter
+        limiter.checkUser("login", "suresh");
+        limiter.checkUser("login", " Suresh ");
+        limiter.checkUser("login", "SURESH");
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+                () -> limiter.checkUser("login", "suresh"));
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+        assertDoesNotThrow(() -> limiter.checkUser("login", "ramesh"));
+    }
+
+    @Test
+    void perIpLimitIsLookedUpByPath() {
+        RateLimiter limiter = limiter();
+
+        RateLimiter.Buckets login = limiter.ipBuckets("/api/auth/login");
+        for (int i = 0; i < 300; i++) {
+            assertEquals(0, login.tryAcquire("203.0.113.7"));
+        }
+        assertTrue(login.tryAcquire("203.0.113.7") > 0);
+        assertNull(limiter.ipBuckets("/api/labour"));
+    }
+
+    private static RateLimiter limiter() {
+        RateLimitProperties.Route login = new RateLimitProperties.Route();
+        login.setPath("/api/auth/login");
+        login.setPerIp(limit(600, Duration.ofMinutes(1), 300));
+        login.setPerUser(limit(10, Duration.ofMinutes(5), 3));
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getRoutes().put("login", login);
+        return new RateLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    private static RateLimitProperties.Limit limit(int requests, Duration period, int burst) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setRequests(requests);
+        limit.setPeriod(period);
+        limit.setBurst(burst);
+        return limit;
+    }
+}
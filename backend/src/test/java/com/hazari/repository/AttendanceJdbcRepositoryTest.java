@@ -0,0 +1,273 @@
+package com.hazari.repository;
+
+import com.hazari.EmbeddedMariaDb;
+import com.hazari.dto.AttendanceEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Double taps: the same labour checking in (or out) several times at once
+ * must leave exactly one attendance row for the day, and each call is one
+ * statement. Tiering: archiveChunk moves old rows to the cold tier and
+ * counts them once in the month summary. Schema: the unique key is added
+ * to a table with duplicates after merging them.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(AttendanceJdbcRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AttendanceJdbcRepositoryTest extends EmbeddedMariaDb {
+
+    private static final int TAPS = 8;
+    private static final long LABOUR_ID = 1L;
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void clean() {
+        jdbcTemplate.update("DELETE FROM attendance");
+        jdbcTemplate.update("DELETE FROM attendance_archive");
+        jdbcTemplate.update("DELETE FROM attendance_month_summary");
+    }
+
+    @Test
+    void concurrentCheckInsLeaveOneRow() throws Exception {
+        LocalDateTime time = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+        List<Long> ids = tapConcurrently(i -> attendanceJdbcRepository.upsertCheckIn(
+                new AttendanceEvent(LABOUR_ID, AttendanceEvent.IN, time.plusSeconds(i), "in-" + i, 1.0, 2.0)));
+
+        assertEquals(1, count());
+        long rowId = jdbcTemplate.queryForObject("SELECT id FROM attendance", Long.class);
+        // Every tap is handed back the id of the one row, inserted or updated
+        ids.forEach(id -> assertEquals(rowId, id));
+    }
+
+    @Test
+    void concurrentCheckOutsUpdateTheCheckedInRow() throws Exception {
+        LocalDateTime in = LocalDateTime.of(2026, 3, 2, 9, 0);
+        attendanceJdbcRepository.upsertCheckIn(new AttendanceEvent(LABOUR_ID, AttendanceEvent.IN, in, "in", 1.0, 2.0));
+
+        List<Integer> updated = tapConcurrently(i -> attendanceJdbcRepository.checkOut(
+                new AttendanceEvent(LABOUR_ID, AttendanceEvent.OUT, in.plusHours(9).plusSeconds(i), "out-" + i, 1.0, 2.0)));
+
+        assertEquals(1, count());
+        updated.forEach(n -> assertEquals(1, n));
+        assertNotNull(jdbcTemplate.queryForObject("SELECT time_out FROM attendance", LocalDateTime.class));
+        assertNotNull(jdbcTemplate.queryForObject("SELECT worked_minutes FROM attendance", Integer.class));
+    }
+
+    @Test
+    void checkOutWithoutCheckInUpdatesNothing() throws Exception {
+        LocalDateTime out = LocalDateTime.of(2026, 3, 2, 18, 0);
+
+        List<Integer> updated = tapConcurrently(i -> attendanceJdbcRepository.checkOut(
+                new AttendanceEvent(LABOUR_ID, AttendanceEvent.OUT, out.plusSeconds(i), "out-" + i, 1.0, 2.0)));
+
+        assertEquals(0, count());
+        updated.forEach(n -> assertEquals(0, n));
+    }
+
+    @Test
+    void eachCheckInAndCheckOutIsOneStatement() {
+        AtomicInteger statements = new AtomicInteger();
+        AttendanceJdbcRepository counted = new AttendanceJdbcRepository(new JdbcTemplate(counting(statements)));
+        LocalDateTime in = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+        counted.upsertCheckIn(new AttendanceEvent(LABOUR_ID, AttendanceEvent.IN, in, "in", 1.0, 2.0));
+        assertEquals(1, statements.getAndSet(0), "check-in, new row");
+        counted.upsertCheckIn(new AttendanceEvent(LABOUR_ID, AttendanceEvent.IN, in.plusMinutes(1), "in", 1.0, 2.0));
+        assertEquals(1, statements.getAndSet(0), "check-in, existing row");
+        counted.checkOut(new AttendanceEvent(LABOUR_ID, AttendanceEvent.OUT, in.plusHours(9), "out", 1.0, 2.0));
+        assertEquals(1, statements.getAndSet(0), "check-out");
+        counted.checkOut(new AttendanceEvent(2L, AttendanceEvent.OUT, in.plusHours(9), "out", 1.0, 2.0));
+        assertEquals(1, statements.getAndSet(0), "check-out without check-in");
+    }
+
+    @Test
+    void missingUniqueKeyIsAddedAfterMergingDuplicates() {
+        assertEquals(-1, attendanceJdbcRepository.ensureLabourDateKey());
+        jdbcTemplate.execute("ALTER TABLE attendance DROP INDEX uk_attendance_labour_date");
+        try {
+            LocalDate day = LocalDate.of(2026, 3, 2);
+            insertRaw(1L, day, day.atTime(9, 30), null);
+            insertRaw(1L, day, day.atTime(9, 0), day.atTime(17, 0));
+            insertRaw(1L, day, null, day.atTime(18, 0));
+            insertRaw(2L, day, day.atTime(9, 0), null);
+            long keepId = jdbcTemplate.queryForObject(
+                    "SELECT MIN(id) FROM attendance WHERE labour_id = 1", Long.class);
+
+            assertEquals(2, attendanceJdbcRepository.ensureLabourDateKey());
+
+            assertEquals(2, count());
+            assertEquals(keepId, jdbcTemplate.queryForObject(
+                    "SELECT id FROM attendance WHERE labour_id = 1", Long.class));
+            assertEquals(day.atTime(9, 0), jdbcTemplate.queryForObject(
+                    "SELECT time_in FROM attendance WHERE labour_id = 1", LocalDateTime.class));
+            assertEquals(day.atTime(18, 0), jdbcTemplate.queryForObject(
+                    "SELECT time_out FROM attendance WHERE labour_id = 1", LocalDateTime.class));
+            assertNull(jdbcTemplate.queryForObject(
+                    "SELECT worked_minutes FROM attendance WHERE labour_id = 1", Integer.class));
+        } finally {
+            attendanceJdbcRepository.ensureLabourDateKey();
+        }
+        assertEquals(-1, attendanceJdbcRepository.ensureLabourDateKey());
+    }
+
+    @Test
+    void archiveChunksMoveOldRowsAndSummariseThem() {
+        LocalDate cutoff = LocalDate.of(2026, 3, 1);
+        // Two labours in January, one in February (checked in only), one in March (stays hot)
+        checkIn(1L, LocalDateTime.of(2026, 1, 5, 9, 0));
+        checkIn(1L, LocalDateTime.of(2026, 1, 6, 9, 0));
+        checkIn(2L, LocalDateTime.of(2026, 1, 5, 9, 0));
+        checkIn(1L, LocalDateTime.of(2026, 2, 10, 9, 0));
+        checkIn(1L, LocalDateTime.of(2026, 3, 2, 9, 0));
+        List<Long> oldIds = jdbcTemplate.queryForList(
+                "SELECT id FROM attendance WHERE date < ? ORDER BY id", Long.class, cutoff);
+
+        assertNull(attendanceJdbcRepository.findNewestArchivedDate());
+
+        // Chunks of 3 across two calls, then nothing left
+        assertEquals(3, attendanceJdbcRepository.archiveChunk(cutoff, 3));
+        assertEquals(1, attendanceJdbcRepository.archiveChunk(cutoff, 3));
+        assertEquals(0, attendanceJdbcRepository.archiveChunk(cutoff, 3));
+
+        assertEquals(1, count());
+        assertEquals(LocalDate.of(2026, 2, 10), attendanceJdbcRepository.findNewestArchivedDate());
+        assertEquals(oldIds, jdbcTemplate.queryForList("SELECT id FROM attendance_archive ORDER BY id", Long.class));
+        assertEquals(2, daysWorked(1L, LocalDate.of(2026, 1, 1)));
+        assertEquals(1, daysWorked(2L, LocalDate.of(2026, 1, 1)));
+        assertEquals(1, daysWorked(1L, LocalDate.of(2026, 2, 1)));
+    }
+
+    private void checkIn(long labourId, LocalDateTime time) {
+        attendanceJdbcRepository.upsertCheckIn(new AttendanceEvent(labourId, AttendanceEvent.IN, time, "in", 1.0, 2.0));
+    }
+
+    private void insertRaw(long labourId, LocalDate date, LocalDateTime timeIn, LocalDateTime timeOut) {
+        jdbcTemplate.update("INSERT INTO attendance (labour_id, date, time_in, time_out, worked_minutes) "
+                + "VALUES (?, ?, ?, ?, 480)", labourId, date, timeIn, timeOut);
+    }
+
+    // DataSource whose statements count every execute call, i.e. every round trip
+    private DataSource counting(AtomicInteger statements) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invoke(method, target, args);
+            if (result instanceof Connection) {
+                return proxy(Connection.class, result, (con, m, a) -> {
+                    Object r = invoke(m, con, a);
+                    if (r instanceof Statement) {
+                        Class<?> type = m.getName().equals("createStatement") ? Statement.class
+                                : m.getName().equals("prepareCall") ? CallableStatement.class
+                                : PreparedStatement.class;
+                        return proxy(type, r, (st, sm, sa) -> {
+                            if (sm.getName().startsWith("execute")) {
+                                statements.incrementAndGet();
+                            }
+                            return invoke(sm, st, sa);
+                        });
+                    }
+                    return r;
+                });
+            }
+            return result;
+        });
+    }
+
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+        InvocationHandler h = (p, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, h);
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private int daysWorked(long labourId, LocalDate month) {
+        return jdbcTemplate.queryForObject(
+                "SELECT days_worked FROM attendance_month_summary WHERE labour_id = ? AND month = ?",
+                Integer.class, labourId, month);
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance", Integer.class);
+    }
+
+    // Runs TAPS calls released together by a latch, returns their results in order
+    private <T> List<T> tapConcurrently(Tap<T> tap) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(TAPS);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < TAPS; i++) {
+                int n = i;
+                Callable<T> call = () -> {
+                    go.await();
+                    return tap.run(n);
+                };
+                futures.add(pool.submit(call));
+            }
+            go.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> f : futures) {
+                results.add(f.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Tap<T> {
+        T run(int i) throws Exception;
+    }
+}
@@ -0,0 +1,93 @@
+package com.hazari.repository;
+
+import com.hazari.EmbeddedMariaDb;
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.dto.MusterRollRowDto;
+import com.hazari.entity.Labour;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Muster-roll reads over a month that is half archived: both tiers come back
+ * from one statement in (labour, date) order, each day once.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({MusterRollJdbcRepository.class, AttendanceJdbcRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MusterRollJdbcRepositoryTest extends EmbeddedMariaDb {
+
+    private static final long CONTRACTOR = 9L;
+    private static final LocalDate MONTH = LocalDate.of(2026, 1, 1);
+
+    @Autowired
+    private MusterRollJdbcRepository musterRollJdbcRepository;
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+
+    @Autowired
+    private LabourRepository labourRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clean() {
+        jdbcTemplate.update("DELETE FROM attendance");
+        jdbcTemplate.update("DELETE FROM attendance_archive");
+        jdbcTemplate.update("DELETE FROM attendance_month_summary");
+    }
+
+    @Test
+    void bothTiersComeBackInLabourAndDateOrder() {
+        long first = labour("Asha");
+        long second = labour("Bhim");
+        // The first half of the month is archived, the second half is still hot
+        for (long labourId : List.of(second, first)) {
+            checkIn(labourId, MONTH.plusDays(20));
+            checkIn(labourId, MONTH.plusDays(2));
+        }
+        attendanceJdbcRepository.archiveChunk(MONTH.plusDays(15), 100);
+
+        List<String> rows = read(true);
+
+        assertEquals(List.of(
+                first + " " + MONTH.plusDays(2), first + " " + MONTH.plusDays(20),
+                second + " " + MONTH.plusDays(2), second + " " + MONTH.plusDays(20)), rows);
+        assertEquals(List.of(first + " " + MONTH.plusDays(20), second + " " + MONTH.plusDays(20)), read(false));
+    }
+
+    private List<String> read(boolean withArchive) {
+        try (Stream<MusterRollRowDto> rows = musterRollJdbcRepository.stream(
+                CONTRACTOR, MONTH, MONTH.plusMonths(1), withArchive)) {
+            return rows.map(row -> row.getLabourId() + " " + row.getDate()).collect(Collectors.toList());
+        }
+    }
+
+    private long labour(String name) {
+        Labour labour = new Labour();
+        labour.setName(name);
+        labour.setContractorId(CONTRACTOR);
+        return labourRepository.save(labour).getId();
+    }
+
+    private void checkIn(long labourId, LocalDate date) {
+        attendanceJdbcRepository.upsertCheckIn(new AttendanceEvent(labourId, AttendanceEvent.IN,
+                date.atTime(9, 0), "in", 1.0, 2.0));
+    }
+}
@@ -0,0 +1,172 @@
+package com.hazari.repository;
+
+import com.hazari.EmbeddedMariaDb;
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.entity.Labour;
+import com.hazari.entity.Payment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The contractor budget ledger kept by rollup refreshes: each labour-month's
+ * amount is counted once, on the contractor it accrued to, and reconcile
+ * repairs a ledger that drifted. The month-end run pays that same contractor.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PayrollJdbcRepository.class, ContractorBudgetJdbcRepository.class, AttendanceJdbcRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PayrollJdbcRepositoryTest extends EmbeddedMariaDb {
+
+    private static final long CONTRACTOR = 7L;
+    private static final long OTHER_CONTRACTOR = 8L;
+    private static final LocalDate MONTH = LocalDate.of(2026, 2, 1);
+
+    @Autowired
+    private PayrollJdbcRepository payrollJdbcRepository;
+
+    @Autowired
+    private ContractorBudgetJdbcRepository budgetJdbcRepository;
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+
+    @Autowired
+    private LabourRepository labourRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Labour labour;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM attendance");
+        jdbcTemplate.update("DELETE FROM payroll_month_summary");
+        jdbcTemplate.update("DELETE FROM contractor_budget_ledger");
+        jdbcTemplate.update("DELETE FROM labour");
+        labour = new Labour();
+        labour.setName("Suresh");
+        labour.setDailyRate(500.0);
+        labour.setContractorId(CONTRACTOR);
+        labour = labourRepository.save(labour);
+    }
+
+    @Test
+    void refreshAccruesTheChangeOnce() {
+        workDays(MONTH, 2);
+        payrollJdbcRepository.refreshMonth(labour.getId(), MONTH);
+        assertAccrued(CONTRACTOR, "1000.00");
+
+        // Recomputing an unchanged month adds nothing
+        payrollJdbcRepository.refreshMonth(labour.getId(), MONTH);
+        assertAccrued(CONTRACTOR, "1000.00");
+
+        workDays(MONTH.plusDays(10), 1);
+        payrollJdbcRepository.refreshMonth(labour.getId(), MONTH);
+        assertAccrued(CONTRACTOR, "1500.00");
+    }
+
+    @Test
+    void concurrentRefreshesOfANewMonthCountItOnce() throws Exception {
+        workDays(MONTH, 3);
+        int threads = 6;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    go.await();
+                    payrollJdbcRepository.refreshMonth(labour.getId(), MONTH);
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertAccrued(CONTRACTOR, "1500.00");
+    }
+
+    @Test
+    void oldMonthsStayWithTheContractorTheyAccruedTo() {
+        workDays(MONTH, 2);
+        payrollJdbcRepository.refreshMonth(labour.getId(), MONTH);
+
+        labour.setContractorId(OTHER_CONTRACTOR);
+        labourRepository.save(labour);
+        // A late correction to February still belongs to the first contractor
+        workDays(MONTH.plusDays(20), 1);
+        payrollJdbcRepository.refreshMonth(labour.getId(), MONTH);
+        LocalDate march = MONTH.plusMonths(1);
+        workDays(march, 1);
+        payrollJdbcRepository.refreshMonth(labour.getId(), march);
+
+        assertAccrued(CONTRACTOR, "1500.00");
+        assertAccrued(OTHER_CONTRACTOR, "500.00");
+    }
+
+    @Test
+    void monthIsPaidByTheContractorItAccruedTo() {
+        workDays(MONTH, 2);
+        payrollJdbcRepository.refreshMonth(labour.getId(), MONTH);
+        labour.setContractorId(OTHER_CONTRACTOR);
+        labourRepository.save(labour);
+
+        assertEquals(List.of(CONTRACTOR, OTHER_CONTRACTOR), payrollJdbcRepository.findContractorIds(MONTH));
+        assertEquals(List.of(labour.getId()), payrollJdbcRepository.findLabourIds(CONTRACTOR, MONTH));
+        List<Payment> payable = payrollJdbcRepository.findPayable(CONTRACTOR, MONTH);
+        assertEquals(1, payable.size());
+        assertEquals(new BigDecimal("1000.00"), payable.get(0).getAmount());
+        assertTrue(payrollJdbcRepository.findPayable(OTHER_CONTRACTOR, MONTH).isEmpty());
+    }
+
+    @Test
+    void reconcileRepairsDrift() {
+        workDays(MONTH, 2);
+        payrollJdbcRepository.refreshMonth(labour.getId(), MONTH);
+        jdbcTemplate.update("UPDATE contractor_budget_ledger SET accrued_amount = 42 WHERE contractor_id = ?", CONTRACTOR);
+
+        assertEquals(1, budgetJdbcRepository.reconcile());
+        assertAccrued(CONTRACTOR, "1000.00");
+        assertEquals(0, budgetJdbcRepository.reconcile());
+    }
+
+    // Checked-in days from the given date on
+    private void workDays(LocalDate from, int days) {
+        for (int i = 0; i < days; i++) {
+            attendanceJdbcRepository.upsertCheckIn(new AttendanceEvent(labour.getId(), AttendanceEvent.IN,
+                    from.plusDays(i).atTime(9, 0), "in", 1.0, 2.0));
+        }
+    }
+
+    private void assertAccrued(long contractorId, String expected) {
+        BigDecimal accrued = jdbcTemplate.queryForObject(
+                "SELECT accrued_amount FROM contractor_budget_ledger WHERE contractor_id = ?",
+                BigDecimal.class, contractorId);
+        assertEquals(new BigDecimal(expected), accrued);
+    }
+}
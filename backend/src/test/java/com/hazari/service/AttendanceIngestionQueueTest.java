@@ -0,0 +1,88 @@
+package com.hazari.service;
+
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.entity.AttendanceDeadLetter;
+import com.hazari.repository.AttendanceDeadLetterRepository;
+import com.hazari.repository.AttendanceJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Write-behind check-outs: refused up front without a check-in, and parked
+ * (never dropped) when the write still finds no row.
+ */
+class AttendanceIngestionQueueTest {
+
+    private final AttendanceJdbcRepository attendanceJdbcRepository = mock(AttendanceJdbcRepository.class);
+    private final LabourStatusCache labourStatusCache = mock(LabourStatusCache.class);
+    private final AttendanceDeadLetterRepository deadLetterRepository = mock(AttendanceDeadLetterRepository.class);
+
+    private final AttendanceIngestionQueue queue = new AttendanceIngestionQueue(
+            attendanceJdbcRepository, mock(TodayBoardService.class), labourStatusCache,
+            mock(PayrollRollupService.class), mock(ShiftRuleService.class), deadLetterRepository,
+            true, 100, 10, 5, 100, 2, 10);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.shutdown();
+    }
+
+    @Test
+    void checkOutWithoutAnyCheckInIsRefused() {
+        queue.start();
+        when(labourStatusCache.getTodayStatus(1L)).thenReturn(Map.of("todayCheckedIn", false));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> queue.submit(event(1L, AttendanceEvent.OUT)));
+        assertEquals("No check-in found for today", e.getMessage());
+        verify(attendanceJdbcRepository, never()).batchCheckOut(anyList());
+    }
+
+    @Test
+    void checkOutIsAcceptedAfterAQueuedOrStoredCheckIn() {
+        queue.start();
+        when(attendanceJdbcRepository.batchCheckOut(anyList())).thenReturn(new int[] {1});
+        when(labourStatusCache.getTodayStatus(1L)).thenReturn(Map.of("todayCheckedIn", false));
+        when(labourStatusCache.getTodayStatus(2L)).thenReturn(Map.of("todayCheckedIn", true));
+
+        queue.submit(event(1L, AttendanceEvent.IN));
+        assertDoesNotThrow(() -> queue.submit(event(1L, AttendanceEvent.OUT)));
+        assertDoesNotThrow(() -> queue.submit(event(2L, AttendanceEvent.OUT)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkOutThatMatchesNoRowIsParkedAsUnmatched() {
+        queue.start();
+        when(labourStatusCache.getTodayStatus(3L)).thenReturn(Map.of("todayCheckedIn", true));
+        when(attendanceJdbcRepository.batchCheckOut(anyList())).thenReturn(new int[] {0});
+
+        queue.submit(event(3L, AttendanceEvent.OUT));
+
+        ArgumentCaptor<List<AttendanceDeadLetter>> rows = ArgumentCaptor.forClass(List.class);
+        verify(deadLetterRepository, timeout(5000)).saveAll(rows.capture());
+        AttendanceDeadLetter row = rows.getValue().get(0);
+        assertEquals(3L, row.getLabourId());
+        assertEquals(AttendanceEvent.OUT, row.getAction());
+        assertTrue(row.isUnmatched());
+    }
+
+    private static AttendanceEvent event(Long labourId, String action) {
+        return new AttendanceEvent(labourId, action, LocalDateTime.now(), null, null, null);
+    }
+}
@@ -0,0 +1,49 @@
+package com.hazari.service;
+
+import com.hazari.dto.TodayAttendanceDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttendanceStreamServiceTest {
+
+    private static final Long CONTRACTOR_ID = 40L;
+    private static final int BUFFER_SIZE = 4;
+
+    private final AttendanceStreamService stream = new AttendanceStreamService(60_000, BUFFER_SIZE, 2, 10_000);
+
+    @AfterEach
+    void tearDown() {
+        stream.shutdown();
+    }
+
+    @Test
+    void subscriberIsDroppedWhenDeltasLeaveNoRoomForTheSnapshot() {
+        // Deltas published while the snapshot is read fill the whole buffer
+        stream.subscribe(CONTRACTOR_ID, () -> {
+            for (int i = 0; i < BUFFER_SIZE; i++) {
+                stream.publish(CONTRACTOR_ID, AttendanceStreamService.CHECK_IN, row(i));
+            }
+            return List.of();
+        });
+
+        assertEquals(0, stream.getSubscriberCount());
+    }
+
+    @Test
+    void subscriberStaysWhenTheSnapshotFits() {
+        stream.subscribe(CONTRACTOR_ID, () -> {
+            stream.publish(CONTRACTOR_ID, AttendanceStreamService.CHECK_IN, row(1));
+            return List.of();
+        });
+
+        assertEquals(1, stream.getSubscriberCount());
+    }
+
+    private static TodayAttendanceDto row(long labourId) {
+        return new TodayAttendanceDto(labourId, "Labour #" + labourId, "PRESENT", "2026-03-02T09:00", null);
+    }
+}
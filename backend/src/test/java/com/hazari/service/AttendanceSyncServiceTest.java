@@ -0,0 +1,165 @@
+package com.hazari.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazari.EmbeddedMariaDb;
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.dto.AttendanceSyncAckDto;
+import com.hazari.dto.AttendanceSyncRequest;
+import com.hazari.entity.Labour;
+import com.hazari.repository.AttendanceJdbcRepository;
+import com.hazari.repository.LabourRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Offline sync merge rules against the real upsert statements: earliest
+ * check-in and latest check-out win, replays are duplicates, and events the
+ * server must not merge are acknowledged with the reason. Tiering is the real
+ * service, disabled: only dates that have actually been archived are too old.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(AttendanceJdbcRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AttendanceSyncServiceTest extends EmbeddedMariaDb {
+
+    private static final LocalDate DAY = LocalDate.now().minusDays(1);
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+
+    @Autowired
+    private LabourRepository labourRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private AttendanceTieringService tiering;
+    private AttendanceSyncService syncService;
+    private Long labourId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM attendance");
+        jdbcTemplate.update("DELETE FROM attendance_sync_event");
+        jdbcTemplate.update("DELETE FROM attendance_archive");
+        jdbcTemplate.update("DELETE FROM attendance_month_summary");
+        Labour labour = new Labour();
+        labour.setName("Ramesh");
+        labour.setDailyRate(500.0);
+        labourId = labourRepository.save(labour).getId();
+
+        tiering = new AttendanceTieringService(attendanceJdbcRepository, false, 3, 1000, 0);
+        syncService = new AttendanceSyncService(attendanceJdbcRepository, labourRepository,
+                mock(TodayBoardService.class), mock(PayrollRollupService.class), mock(ShiftRuleService.class),
+                tiering, objectMapper, 500, 7, 300000);
+    }
+
+    @Test
+    void earliestCheckInAndLatestCheckOutWin() throws Exception {
+        Map<String, String> first = sync(
+                event("a", AttendanceEvent.IN, DAY.atTime(9, 10)),
+                event("b", AttendanceEvent.OUT, DAY.atTime(17, 0)));
+        // A second device uploads the same day later, with an earlier check-in and a later check-out
+        Map<String, String> second = sync(
+                event("c", AttendanceEvent.IN, DAY.atTime(8, 55)),
+                event("d", AttendanceEvent.IN, DAY.atTime(9, 30)),
+                event("e", AttendanceEvent.OUT, DAY.atTime(18, 5)),
+                event("f", AttendanceEvent.OUT, DAY.atTime(16, 0)));
+
+        assertEquals(Map.of("a", AttendanceSyncAckDto.ACCEPTED, "b", AttendanceSyncAckDto.ACCEPTED), first);
+        second.values().forEach(result -> assertEquals(AttendanceSyncAckDto.ACCEPTED, result));
+        assertEquals(DAY.atTime(8, 55), jdbcTemplate.queryForObject("SELECT time_in FROM attendance", LocalDateTime.class));
+        assertEquals(DAY.atTime(18, 5), jdbcTemplate.queryForObject("SELECT time_out FROM attendance", LocalDateTime.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance", Integer.class));
+    }
+
+    @Test
+    void replayedEventsAreDuplicates() throws Exception {
+        AttendanceEvent in = event("a", AttendanceEvent.IN, DAY.atTime(9, 0));
+        sync(in);
+
+        assertEquals(AttendanceSyncAckDto.DUPLICATE, sync(event("a", AttendanceEvent.IN, DAY.atTime(9, 0))).get("a"));
+    }
+
+    @Test
+    void rejectedEventsCarryTheReason() throws Exception {
+        AttendanceEvent unknown = event("unknown", AttendanceEvent.IN, DAY.atTime(9, 0));
+        unknown.setLabourId(labourId + 1000);
+        AttendanceEvent wrongDay = event("wrong-day", AttendanceEvent.IN, DAY.atTime(9, 0));
+        wrongDay.setDate(DAY.minusDays(1));
+
+        Map<String, String> acks = sync(
+                event("no-in", AttendanceEvent.OUT, DAY.atTime(18, 0)),
+                unknown,
+                wrongDay,
+                event("future", AttendanceEvent.IN, LocalDateTime.now().plusHours(2)),
+                event("archived", AttendanceEvent.IN, archiveDay(LocalDate.now().minusMonths(6)).atTime(9, 0)));
+
+        assertEquals(AttendanceSyncAckDto.NO_CHECKIN, acks.get("no-in"));
+        assertEquals(AttendanceSyncAckDto.UNKNOWN_LABOUR, acks.get("unknown"));
+        assertEquals(AttendanceSyncAckDto.INVALID, acks.get("wrong-day"));
+        assertEquals(AttendanceSyncAckDto.INVALID, acks.get("future"));
+        assertEquals(AttendanceSyncAckDto.TOO_OLD, acks.get("archived"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance", Integer.class));
+    }
+
+    @Test
+    void oldDatesAreMergedWhileNothingIsArchived() throws Exception {
+        LocalDate old = LocalDate.now().minusMonths(6);
+
+        assertEquals(AttendanceSyncAckDto.ACCEPTED, sync(event("old", AttendanceEvent.IN, old.atTime(9, 0))).get("old"));
+        assertEquals(old, jdbcTemplate.queryForObject("SELECT date FROM attendance", LocalDate.class));
+    }
+
+    // Archives another labour's row on that day, as an earlier tiering run would have
+    private LocalDate archiveDay(LocalDate day) {
+        attendanceJdbcRepository.upsertCheckIn(
+                new AttendanceEvent(labourId + 2000, AttendanceEvent.IN, day.atTime(8, 0), "in", 1.0, 2.0));
+        attendanceJdbcRepository.archiveChunk(day.plusDays(1), 100);
+        tiering.refreshArchivedBefore();
+        return day;
+    }
+
+    private AttendanceEvent event(String id, String action, LocalDateTime time) {
+        AttendanceEvent event = new AttendanceEvent(labourId, action, time, "photo-" + id, 1.0, 2.0);
+        event.setEventId(id);
+        // Devices usually send time only; the service derives the date
+        event.setDate(null);
+        return event;
+    }
+
+    private Map<String, String> sync(AttendanceEvent... events) throws Exception {
+        AttendanceSyncRequest request = new AttendanceSyncRequest();
+        request.setEvents(List.of(events));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        syncService.sync(request, out);
+
+        Map<String, String> acks = new HashMap<>();
+        for (String line : out.toString().split("\n")) {
+            JsonNode ack = objectMapper.readTree(line);
+            acks.put(ack.get("eventId").asText(), ack.get("result").asText());
+        }
+        return acks;
+    }
+}
@@ -0,0 +1,62 @@
+package com.hazari.service;
+
+import com.hazari.entity.Labour;
+import com.hazari.entity.User;
+import com.hazari.repository.LabourRepository;
+import com.hazari.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LabourLinkServiceTest {
+
+    private final LabourRepository labourRepository = mock(LabourRepository.class);
+    private final UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+    private final LabourLinkService service = new LabourLinkService(
+            mock(UserRepository.class), labourRepository, userDetailsService, false);
+
+    @Test
+    void createForLinksTheLabourWithTheSamePhone() {
+        Labour existing = new Labour();
+        existing.setId(11L);
+        existing.setPhone("9800000001");
+        when(labourRepository.findByUserId(5L)).thenReturn(Optional.empty());
+        when(labourRepository.findFirstByPhoneAndUserIdIsNullOrderByIdAsc("9800000001"))
+                .thenReturn(Optional.of(existing));
+        when(labourRepository.save(any(Labour.class))).thenAnswer(call -> call.getArgument(0));
+
+        assertEquals(11L, service.createFor(user()));
+        assertEquals(5L, existing.getUserId());
+        verify(labourRepository).save(existing);
+        verify(userDetailsService).evict("ramesh");
+    }
+
+    @Test
+    void createForMakesANewLabourWhenNoPhoneMatches() {
+        when(labourRepository.findByUserId(5L)).thenReturn(Optional.empty());
+        when(labourRepository.findFirstByPhoneAndUserIdIsNullOrderByIdAsc("9800000001"))
+                .thenReturn(Optional.empty());
+        when(labourRepository.save(any(Labour.class))).thenAnswer(call -> {
+            Labour labour = call.getArgument(0);
+            labour.setId(12L);
+            return labour;
+        });
+
+        assertEquals(12L, service.createFor(user()));
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(5L);
+        user.setUsername("ramesh");
+        user.setPhone("9800000001");
+        user.setRole("LABOUR");
+        return user;
+    }
+}
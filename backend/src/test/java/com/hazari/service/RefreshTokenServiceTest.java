@@ -0,0 +1,140 @@
+package com.hazari.service;
+
+import com.hazari.EmbeddedMariaDb;
+import com.hazari.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Refresh token rotation against the real conditional revoke: each token
+ * works once, a replayed token revokes its whole family, and of two
+ * concurrent refreshes with the same token only one gets a successor.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTest extends EmbeddedMariaDb {
+
+    private static final Long USER_ID = 7L;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+        service = new RefreshTokenService(refreshTokenRepository, 60_000);
+    }
+
+    @Test
+    void rotationIssuesTheNextTokenAndRetiresThePresentedOne() {
+        String first = service.issue(USER_ID);
+
+        RefreshTokenService.Rotation rotation = service.rotate(first);
+        assertEquals(USER_ID, rotation.getUserId());
+        assertNotEquals(first, rotation.getRefreshToken());
+
+        // The successor keeps working, one use at a time
+        String third = service.rotate(rotation.getRefreshToken()).getRefreshToken();
+        assertEquals(USER_ID, service.rotate(third).getUserId());
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheFamily() {
+        String first = service.issue(USER_ID);
+        String second = service.rotate(first).getRefreshToken();
+
+        assertUnauthorized(() -> service.rotate(first));
+        // The legitimate holder of the newer token has to log in again too
+        assertUnauthorized(() -> service.rotate(second));
+    }
+
+    @Test
+    void otherFamiliesSurviveAReuse() {
+        String phone = service.issue(USER_ID);
+        String tablet = service.issue(USER_ID);
+        service.rotate(phone);
+
+        assertUnauthorized(() -> service.rotate(phone));
+        assertEquals(USER_ID, service.rotate(tablet).getUserId());
+    }
+
+    @Test
+    void concurrentRefreshesWithOneTokenRotateOnce() throws Exception {
+        String first = service.issue(USER_ID);
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        return service.rotate(first).getRefreshToken();
+                    } catch (ResponseStatusException e) {
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            int rotated = 0;
+            for (Future<String> result : results) {
+                if (result.get() != null) {
+                    rotated++;
+                }
+            }
+            assertEquals(1, rotated);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void expiredAndUnknownTokensAreRejected() {
+        RefreshTokenService shortLived = new RefreshTokenService(refreshTokenRepository, -1);
+        String expired = shortLived.issue(USER_ID);
+
+        assertUnauthorized(() -> service.rotate(expired));
+        assertUnauthorized(() -> service.rotate("not-a-token"));
+        assertUnauthorized(() -> service.rotate(" "));
+    }
+
+    @Test
+    void revokeAllForUserEndsEveryFamily() {
+        String phone = service.issue(USER_ID);
+        String tablet = service.issue(USER_ID);
+        String other = service.issue(8L);
+
+        service.revokeAllForUser(USER_ID);
+
+        assertUnauthorized(() -> service.rotate(phone));
+        assertUnauthorized(() -> service.rotate(tablet));
+        assertEquals(8L, service.rotate(other).getUserId());
+    }
+
+    private static void assertUnauthorized(Runnable call) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, call::run);
+        assertEquals(HttpStatus.UNAUTHORIZED, e.getStatusCode());
+    }
+}
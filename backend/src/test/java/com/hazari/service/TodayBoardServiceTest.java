@@ -0,0 +1,101 @@
+package com.hazari.service;
+
+import com.hazari.EmbeddedMariaDb;
+import com.hazari.dto.AttendanceEvent;
+import com.hazari.dto.TodayAttendanceDto;
+import com.hazari.entity.Labour;
+import com.hazari.repository.AttendanceJdbcRepository;
+import com.hazari.repository.AttendanceRepository;
+import com.hazari.repository.LabourRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Another instance's writes reach this instance's board through the
+ * updated_at sync, and are published once.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(AttendanceJdbcRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TodayBoardServiceTest extends EmbeddedMariaDb {
+
+    private static final Long CONTRACTOR_ID = 40L;
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private LabourRepository labourRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AttendanceStreamService stream = mock(AttendanceStreamService.class);
+    private final LabourStatusCache statusCache = mock(LabourStatusCache.class);
+
+    private TodayBoardService board;
+    private Long labourId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM attendance");
+        Labour labour = new Labour();
+        labour.setName("Ramesh");
+        labour.setContractorId(CONTRACTOR_ID);
+        labourId = labourRepository.save(labour).getId();
+        board = new TodayBoardService(attendanceRepository, labourRepository, stream, statusCache, 600000, 10000);
+    }
+
+    @Test
+    void writesFromAnotherInstanceReachTheBoard() {
+        assertTrue(board.getForContractor(CONTRACTOR_ID).isEmpty());
+        board.syncFromDatabase();
+
+        // Written elsewhere: no hook runs on this instance
+        LocalDateTime in = LocalDate.now().atTime(0, 1);
+        attendanceJdbcRepository.upsertCheckIn(new AttendanceEvent(labourId, AttendanceEvent.IN, in, "in", 1.0, 2.0));
+        board.syncFromDatabase();
+
+        List<TodayAttendanceDto> rows = board.getForContractor(CONTRACTOR_ID);
+        assertEquals(1, rows.size());
+        assertEquals("Ramesh", rows.get(0).getLabourName());
+        assertNotNull(rows.get(0).getCheckIn());
+        assertNull(rows.get(0).getCheckOut());
+        assertEquals(1, board.getAll().size());
+
+        attendanceJdbcRepository.checkOut(new AttendanceEvent(labourId, AttendanceEvent.OUT, in.plusMinutes(1), "out", 1.0, 2.0));
+        board.syncFromDatabase();
+        // Rows inside the overlap are read again but not published again
+        board.syncFromDatabase();
+
+        assertNotNull(board.getForContractor(CONTRACTOR_ID).get(0).getCheckOut());
+        verify(stream, times(1)).publish(eq(CONTRACTOR_ID), eq(AttendanceStreamService.CHECK_IN), any());
+        verify(stream, times(1)).publish(eq(CONTRACTOR_ID), eq(AttendanceStreamService.CHECK_OUT), any());
+        verify(statusCache, times(2)).onExternalWrite(labourId, LocalDate.now());
+    }
+}
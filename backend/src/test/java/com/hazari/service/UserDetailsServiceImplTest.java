@@ -0,0 +1,53 @@
+package com.hazari.service;
+
+import com.hazari.entity.User;
+import com.hazari.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserDetailsServiceImplTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TokenVersionRegistry tokenVersions = new TokenVersionRegistry(userRepository);
+    private final UserDetailsServiceImpl service = new UserDetailsServiceImpl(
+            userRepository, tokenVersions, new SimpleMeterRegistry(), 100, 600_000);
+
+    @Test
+    void cachedUserIsReloadedOnceItsTokenVersionIsRevoked() {
+        User before = user("old-hash", 0);
+        User after = user("new-hash", 1);
+        when(userRepository.findWithLabourId("ramesh")).thenReturn(
+                Collections.singletonList(new Object[] {before, null}),
+                Collections.singletonList(new Object[] {after, null}));
+
+        assertSame(before, service.loadUserByUsername("ramesh"));
+        assertSame(before, service.loadUserByUsername("ramesh"));
+        verify(userRepository, times(1)).findWithLabourId("ramesh");
+
+        // Password reset on another instance, seen by this one's registry reload
+        tokenVersions.onBumped(7L, 1);
+
+        assertEquals("new-hash", service.loadUserByUsername("ramesh").getPassword());
+        assertSame(after, service.loadUserByUsername("ramesh"));
+        verify(userRepository, times(2)).findWithLabourId("ramesh");
+    }
+
+    private static User user(String password, int tokenVersion) {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("ramesh");
+        user.setPassword(password);
+        user.setRole("LABOUR");
+        user.setTokenVersion(tokenVersion);
+        return user;
+    }
+}